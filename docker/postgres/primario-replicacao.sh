@@ -0,0 +1,10 @@
+#!/bin/bash
+# Executado pela imagem oficial do postgres só na criação do banco (docker-entrypoint-initdb.d):
+# cria o usuário de replicação e libera a conexão de replicação da réplica
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-EOSQL
+	create role ${REPLICACAO_USUARIO} with replication login password '${REPLICACAO_SENHA}';
+EOSQL
+
+echo "host replication ${REPLICACAO_USUARIO} all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,15 @@
+#!/bin/bash
+# Réplica por streaming: na primeira subida copia o primário com pg_basebackup (-R grava o primary_conninfo
+# e o standby.signal) e depois inicia o postgres como hot standby, somente leitura
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until PGPASSWORD="$REPLICACAO_SENHA" pg_basebackup --host=db --username="$REPLICACAO_USUARIO" \
+            --pgdata="$PGDATA" --write-recovery-conf --wal-method=stream; do
+        echo "Aguardando o primário para a cópia inicial..."
+        sleep 2
+    done
+    chmod 0700 "$PGDATA"
+fi
+
+exec postgres
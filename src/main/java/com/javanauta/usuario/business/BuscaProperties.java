@@ -0,0 +1,27 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "busca")
+public class BuscaProperties {
+
+    // Semelhança mínima (0 a 1) entre o termo e alguma palavra do nome ou do email
+    private double semelhancaMinima = 0.4;
+
+    // Quantidade máxima de resultados por busca
+    private int limiteMaximo = 50;
+
+    // Tempo máximo da consulta no banco antes de responder 503
+    private Duration tempoMaximo = Duration.ofMillis(500);
+
+    // Termos menores que isso não formam trigramas suficientes para usar o índice
+    private int tamanhoMinimoTermo = 3;
+}
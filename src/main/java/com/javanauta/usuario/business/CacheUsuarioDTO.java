@@ -0,0 +1,162 @@
+package com.javanauta.usuario.business;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.database.BarramentoInvalidacao;
+import com.javanauta.usuario.infrastructure.database.OuvinteInvalidacao;
+import com.javanauta.usuario.infrastructure.database.ReplicaProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Usuários já montados (com endereços e telefones) indexados pelo email em minúsculas.
+// Nunca guarda o hash da senha. As escritas invalidam a entrada na hora e de novo depois do commit,
+// para que uma leitura concorrente não recoloque no cache o estado anterior à transação;
+// as demais instâncias são avisadas pelo BarramentoInvalidacao, uma vez por email e transação,
+// quando a transação é confirmada.
+@Component
+public class CacheUsuarioDTO implements OuvinteInvalidacao {
+
+    private final AsyncCache<String, UsuarioDTO> cache;
+    // Com réplica de leitura, uma carga logo após o commit pode ler dados antigos da réplica;
+    // a entrada é invalidada mais uma vez quando a janela de atraso da réplica termina
+    private final Duration atrasoReplica;
+    private final BarramentoInvalidacao barramento;
+
+    public CacheUsuarioDTO(UsuarioCacheProperties properties, ReplicaProperties replicaProperties,
+                           BarramentoInvalidacao barramento, MeterRegistry meterRegistry) {
+        this.barramento = barramento;
+        this.atrasoReplica = replicaProperties.replicaConfigurada()
+                ? replicaProperties.getJanelaLeituraPropria()
+                : null;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getTamanhoMaximo())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        // Acertos, faltas e tempo de carga em cache.gets / cache.load.duration com a tag cache=usuario
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "usuario");
+    }
+
+    // Carrega no máximo uma vez por email ao mesmo tempo; as demais requisições esperam pelo mesmo resultado.
+    // Cada chamada recebe a sua cópia: alterar o DTO devolvido não muda a entrada compartilhada do cache
+    public UsuarioDTO buscar(String email, Function<String, UsuarioDTO> carregador) {
+        return copia(CargaUnica.buscar(cache, chave(email), chave -> semSenha(carregador.apply(email))));
+    }
+
+    public void invalidar(String email) {
+        if (email == null) {
+            return;
+        }
+        String chave = chave(email);
+        cache.synchronous().invalidate(chave);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidacoesDaTransacao().chaves.add(chave);
+        } else {
+            invalidarLocal(chave);
+            barramento.publicarUsuario(chave);
+        }
+    }
+
+    // Uma única sincronização por transação junta as chaves invalidadas nela
+    private InvalidacoesTransacao invalidacoesDaTransacao() {
+        for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacao instanceof InvalidacoesTransacao invalidacoes) {
+                return invalidacoes;
+            }
+        }
+        InvalidacoesTransacao invalidacoes = new InvalidacoesTransacao();
+        TransactionSynchronizationManager.registerSynchronization(invalidacoes);
+        return invalidacoes;
+    }
+
+    public void invalidarTodos() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public void usuarioAlterado(String email) {
+        invalidarLocal(chave(email));
+    }
+
+    @Override
+    public void recuperar() {
+        invalidarTodos();
+    }
+
+    private void invalidarLocal(String chave) {
+        cache.synchronous().invalidate(chave);
+        if (atrasoReplica != null) {
+            CompletableFuture.delayedExecutor(atrasoReplica.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> cache.synchronous().invalidate(chave));
+        }
+    }
+
+    // Publica cada chave uma vez por transação. O pg_notify precisa rodar antes do commit, ainda na transação:
+    // depois dele o comando cairia em uma transação nova que nunca é confirmada. O PostgreSQL só entrega
+    // a notificação às outras instâncias quando a transação é confirmada, e nada entrega se houver rollback
+    private class InvalidacoesTransacao implements TransactionSynchronization {
+
+        private final Set<String> chaves = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            chaves.forEach(barramento::publicarUsuario);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            chaves.forEach(CacheUsuarioDTO.this::invalidarLocal);
+        }
+    }
+
+    private UsuarioDTO semSenha(UsuarioDTO dto) {
+        dto.setSenha(null);
+        return dto;
+    }
+
+    private UsuarioDTO copia(UsuarioDTO dto) {
+        return UsuarioDTO.builder()
+                .nome(dto.getNome())
+                .email(dto.getEmail())
+                .enderecos(dto.getEnderecos() == null ? null : dto.getEnderecos().stream()
+                        .map(endereco -> EnderecoDTO.builder()
+                                .id(endereco.getId())
+                                .rua(endereco.getRua())
+                                .numero(endereco.getNumero())
+                                .complemento(endereco.getComplemento())
+                                .cidade(endereco.getCidade())
+                                .estado(endereco.getEstado())
+                                .cep(endereco.getCep())
+                                .enriquecimentoPendente(endereco.getEnriquecimentoPendente())
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .telefones(dto.getTelefones() == null ? null : dto.getTelefones().stream()
+                        .map(telefone -> TelefoneDTO.builder()
+                                .id(telefone.getId())
+                                .numero(telefone.getNumero())
+                                .ddd(telefone.getDdd())
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+
+    private String chave(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,42 @@
+package com.javanauta.usuario.business;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Carga única por chave em um AsyncCache. Só o futuro vazio é criado dentro do compute do mapa;
+// a thread que o criou faz a carga fora de qualquer lock e as demais aguardam o mesmo futuro.
+// Fazer I/O dentro do compute (Cache.get com loader) segura o lock synchronized do ConcurrentHashMap,
+// o que prende a virtual thread à thread da plataforma durante toda a consulta.
+final class CargaUnica {
+
+    private CargaUnica() {
+    }
+
+    static <K, V> V buscar(AsyncCache<K, V> cache, K chave, Function<K, V> carregador) {
+        CompletableFuture<V> novo = new CompletableFuture<>();
+        CompletableFuture<V> futuro = cache.get(chave, (k, executor) -> novo);
+        if (futuro == novo) {
+            try {
+                // Futuros concluídos com erro são removidos do cache pelo próprio Caffeine
+                novo.complete(carregador.apply(chave));
+            } catch (RuntimeException | Error e) {
+                novo.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.infrastructure.clients.ViaCepDTO;
+import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
+import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import io.github.resilience4j.micrometer.tagged.TaggedRateLimiterMetrics;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Preenche em segundo plano rua, cidade e estado dos endereços cadastrados com enriquecer=true.
+// Cada execução reserva um lote de pendentes (skip locked, várias instâncias não disputam os mesmos endereços),
+// consulta o ViaCep uma vez por CEP distinto dentro do limite de chamadas e grava o resultado por CEP,
+// sem manter transação aberta durante as consultas. Falhas do ViaCep reagendam o endereço com espera exponencial.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "enriquecimento.habilitado", havingValue = "true", matchIfMissing = true)
+public class EnriquecedorEnderecos {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ViaCepService viaCepService;
+    private final CacheUsuarioDTO cacheUsuarioDTO;
+    private final OutboxUsuario outboxUsuario;
+    private final EnriquecimentoProperties properties;
+    private final RateLimiter limitador;
+    private final Counter enriquecidos;
+    private final Counter descartados;
+    private final Counter reagendados;
+
+    public EnriquecedorEnderecos(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 ViaCepService viaCepService, CacheUsuarioDTO cacheUsuarioDTO,
+                                 OutboxUsuario outboxUsuario, EnriquecimentoProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.viaCepService = viaCepService;
+        this.cacheUsuarioDTO = cacheUsuarioDTO;
+        this.outboxUsuario = outboxUsuario;
+        this.properties = properties;
+
+        RateLimiterRegistry limitadores = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(properties.getChamadasPorSegundo())
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ofSeconds(1))
+                .build());
+        this.limitador = limitadores.rateLimiter("viacep-enriquecimento");
+        TaggedRateLimiterMetrics.ofRateLimiterRegistry(limitadores).bindTo(meterRegistry);
+
+        this.enriquecidos = contador(meterRegistry, "enriquecido");
+        this.descartados = contador(meterRegistry, "descartado");
+        this.reagendados = contador(meterRegistry, "reagendado");
+    }
+
+    private Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("enriquecimento.enderecos")
+                .description("Endereços processados pelo enriquecimento de CEP")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "#{@enriquecimentoProperties.intervalo.toMillis()}")
+    public void enriquecer() {
+        List<Pendente> pendentes = reservar();
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        // Vários endereços com o mesmo CEP custam uma única consulta
+        Map<String, List<Pendente>> porCep = pendentes.stream().collect(Collectors.groupingBy(
+                pendente -> pendente.getCep().replace(" ", "").replace("-", ""),
+                LinkedHashMap::new, Collectors.toList()));
+
+        List<Pendente> naoProcessados = new ArrayList<>(pendentes);
+        for (Map.Entry<String, List<Pendente>> entrada : porCep.entrySet()) {
+            if (!limitador.acquirePermission()) {
+                break;
+            }
+            List<Long> ids = entrada.getValue().stream().map(Pendente::getId).toList();
+            naoProcessados.removeAll(entrada.getValue());
+            try {
+                aplicar(ids, viaCepService.buscarDadosEndereco(entrada.getKey()));
+                enriquecidos.increment(ids.size());
+            } catch (ResourceNotFoundException | IllegalArgumentException e) {
+                // CEP inexistente ou inválido: não adianta tentar de novo
+                atualizar("update endereco set enriquecer_em = null where id in (:ids)", ids);
+                descartados.increment(ids.size());
+                log.info("Enriquecimento descartado para o CEP {}: {}", entrada.getKey(), e.getMessage());
+            } catch (RuntimeException e) {
+                reagendar(ids);
+                reagendados.increment(ids.size());
+                log.warn("Falha ao consultar o CEP {}, nova tentativa mais tarde: {}", entrada.getKey(), e.getMessage());
+            }
+        }
+
+        // Limite de chamadas esgotado: o restante volta para a fila sem contar como tentativa
+        if (!naoProcessados.isEmpty()) {
+            atualizar("update endereco set enriquecer_em = now() where id in (:ids)",
+                    naoProcessados.stream().map(Pendente::getId).toList());
+        }
+    }
+
+    // Reserva o lote adiando enriquecer_em pelo tempo de reserva, em uma transação curta
+    private List<Pendente> reservar() {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("limite", properties.getTamanhoLote())
+                .addValue("reserva", properties.getReserva().toSeconds());
+        List<Pendente> pendentes = transactionTemplate.execute(status -> jdbcTemplate.query("""
+                        update endereco set enriquecer_em = now() + make_interval(secs => :reserva)
+                        where id in (select id from endereco where enriquecer_em <= now()
+                                     order by enriquecer_em limit :limite for update skip locked)
+                        returning id, cep""", parametros,
+                (rs, linha) -> new Pendente(rs.getLong("id"), rs.getString("cep"))));
+        return pendentes != null ? pendentes : List.of();
+    }
+
+    // Preenche só os campos ainda vazios, sem sobrescrever o que o cliente informou
+    private void aplicar(List<Long> ids, ViaCepDTO viaCep) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Object> parametrosIds = Map.of("ids", ids);
+            // Bloqueia os usuários antes dos endereços, na mesma ordem das atualizações feitas pelas requisições
+            Map<Long, String> emails = new LinkedHashMap<>();
+            jdbcTemplate.query("""
+                            select id, email from usuario
+                            where id in (select usuario_id from endereco where id in (:ids))
+                            order by id for no key update""", parametrosIds,
+                    rs -> {
+                        emails.put(rs.getLong("id"), rs.getString("email"));
+                    });
+
+            MapSqlParameterSource parametros = new MapSqlParameterSource(parametrosIds)
+                    .addValue("rua", viaCep.getLogradouro())
+                    .addValue("cidade", viaCep.getLocalidade())
+                    .addValue("estado", viaCep.getUf());
+            List<Map.Entry<Long, EnderecoDTO>> atualizados = jdbcTemplate.query("""
+                            update endereco set rua = coalesce(rua, :rua), cidade = coalesce(cidade, :cidade),
+                                   estado = coalesce(estado, :estado), enriquecer_em = null, tentativas_enriquecimento = 0
+                            where id in (:ids) and enriquecer_em is not null
+                            returning id, rua, numero, complemento, cidade, estado, cep, usuario_id""", parametros,
+                    (rs, linha) -> Map.entry(rs.getLong("usuario_id"), EnderecoDTO.builder()
+                            .id(rs.getLong("id"))
+                            .rua(rs.getString("rua"))
+                            .numero(rs.getObject("numero", Long.class))
+                            .complemento(rs.getString("complemento"))
+                            .cidade(rs.getString("cidade"))
+                            .estado(rs.getString("estado"))
+                            .cep(rs.getString("cep"))
+                            .enriquecimentoPendente(false)
+                            .build()));
+
+            for (Map.Entry<Long, EnderecoDTO> atualizado : atualizados) {
+                String email = emails.get(atualizado.getKey());
+                cacheUsuarioDTO.invalidar(email);
+                outboxUsuario.registrar(TipoEventoUsuario.ENDERECO_ATUALIZADO, atualizado.getKey(), email,
+                        atualizado.getValue());
+            }
+        });
+    }
+
+    // Espera inicial dobrada a cada falha, limitada à espera máxima; desiste depois do máximo de tentativas
+    private void reagendar(List<Long> ids) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("ids", ids)
+                .addValue("maximo", properties.getMaximoTentativas())
+                .addValue("inicial", properties.getEsperaInicial().toSeconds())
+                .addValue("maxima", properties.getEsperaMaxima().toSeconds());
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                update endereco set tentativas_enriquecimento = tentativas_enriquecimento + 1,
+                       enriquecer_em = case when tentativas_enriquecimento + 1 >= :maximo then null
+                           else now() + make_interval(secs => least(:inicial * power(2, tentativas_enriquecimento), :maxima))
+                       end
+                where id in (:ids)""", parametros));
+    }
+
+    private void atualizar(String sql, List<Long> ids) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql, Map.of("ids", ids)));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Pendente {
+
+        private final long id;
+        private final String cep;
+    }
+}
@@ -0,0 +1,37 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "enriquecimento")
+public class EnriquecimentoProperties {
+
+    // false: os endereços continuam marcados como pendentes, mas esta instância não os processa
+    private boolean habilitado = true;
+
+    // Intervalo entre as execuções do enriquecimento
+    private Duration intervalo = Duration.ofSeconds(2);
+
+    // Endereços reservados por execução
+    private int tamanhoLote = 200;
+
+    // Tempo de reserva de um lote; se a instância cair, os endereços voltam a ficar disponíveis depois disso
+    private Duration reserva = Duration.ofMinutes(2);
+
+    // Consultas ao ViaCep por segundo feitas pelo enriquecimento, somando todos os CEPs. O limite vale por
+    // instância: com N instâncias enriquecendo, o ViaCep recebe até N vezes esse valor. Divida o limite desejado
+    // pela quantidade de instâncias ou deixe o enriquecimento habilitado em uma só (enriquecimento.habilitado)
+    private int chamadasPorSegundo = 5;
+
+    // Nova tentativa após falha do ViaCep: espera dobrada a cada tentativa, até a espera máxima
+    private Duration esperaInicial = Duration.ofSeconds(30);
+    private Duration esperaMaxima = Duration.ofHours(1);
+    private int maximoTentativas = 8;
+}
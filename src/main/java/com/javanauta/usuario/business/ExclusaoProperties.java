@@ -0,0 +1,24 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "exclusao")
+public class ExclusaoProperties {
+
+    // true: a exclusão só marca o usuário (excluido_em) e as linhas são removidas depois pelo purgador
+    private boolean logica = false;
+
+    // Intervalo entre as execuções do purgador
+    private Duration intervaloPurga = Duration.ofMinutes(1);
+
+    // Usuários removidos por transação, para manter os bloqueios curtos
+    private int tamanhoLotePurga = 500;
+}
@@ -0,0 +1,76 @@
+package com.javanauta.usuario.business;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Uma virtual thread por tarefa, com os limites de um pool fixo com fila limitada: no máximo paralelismo tarefas
+// executando e paralelismo + capacidadeFila aceitas ao mesmo tempo; acima disso a tarefa é rejeitada na hora.
+// A tarefa aceita espera a sua vez bloqueada no semáforo, o que em uma virtual thread não ocupa thread da plataforma
+final class ExecutorVirtualLimitado extends AbstractExecutorService {
+
+    private final ExecutorService threads;
+    private final Semaphore aceitas;
+    private final Semaphore execucoes;
+
+    ExecutorVirtualLimitado(String prefixo, int paralelismo, int capacidadeFila) {
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefixo, 0).factory());
+        this.aceitas = new Semaphore(paralelismo + capacidadeFila);
+        this.execucoes = new Semaphore(paralelismo);
+    }
+
+    @Override
+    public void execute(Runnable tarefa) {
+        if (!aceitas.tryAcquire()) {
+            throw new RejectedExecutionException("Limite de tarefas aceitas atingido");
+        }
+        try {
+            threads.execute(() -> {
+                try {
+                    execucoes.acquire();
+                } catch (InterruptedException e) {
+                    aceitas.release();
+                    return;
+                }
+                try {
+                    tarefa.run();
+                } finally {
+                    execucoes.release();
+                    aceitas.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            aceitas.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        threads.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return threads.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return threads.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return threads.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return threads.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,109 @@
+package com.javanauta.usuario.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.javanauta.usuario.business.converter.UsuarioConverter;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.entity.Endereco;
+import com.javanauta.usuario.infrastructure.entity.Telefone;
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+import com.javanauta.usuario.infrastructure.repository.EnderecoRepository;
+import com.javanauta.usuario.infrastructure.repository.TelefoneRepository;
+import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Exporta todos os usuários, com endereços e telefones, em NDJSON.
+// Os usuários vêm de um cursor no banco em blocos; os filhos de cada bloco são carregados em duas consultas
+// e o contexto de persistência é limpo depois de escrever o bloco, então o heap não cresce com a tabela.
+@Slf4j
+@Service
+public class ExportacaoUsuarioService {
+
+    private static final int TAMANHO_BLOCO = 500;
+
+    private final UsuarioRepository usuarioRepository;
+    private final EnderecoRepository enderecoRepository;
+    private final TelefoneRepository telefoneRepository;
+    private final UsuarioConverter usuarioConverter;
+    private final EntityManager entityManager;
+    private final ObjectWriter escritorJson;
+    private final TransactionTemplate transacaoLeitura;
+
+    public ExportacaoUsuarioService(UsuarioRepository usuarioRepository, EnderecoRepository enderecoRepository,
+                                    TelefoneRepository telefoneRepository, UsuarioConverter usuarioConverter,
+                                    EntityManager entityManager, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.usuarioRepository = usuarioRepository;
+        this.enderecoRepository = enderecoRepository;
+        this.telefoneRepository = telefoneRepository;
+        this.usuarioConverter = usuarioConverter;
+        this.entityManager = entityManager;
+        this.escritorJson = objectMapper.writerFor(UsuarioDTO.class);
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    public void exportaUsuarios(OutputStream saida) {
+        long inicio = System.currentTimeMillis();
+        long[] exportados = {0};
+        // O cursor do PostgreSQL só busca em blocos dentro de uma transação
+        transacaoLeitura.executeWithoutResult(status -> {
+            try (Stream<Usuario> usuarios = usuarioRepository.streamTodos()) {
+                List<Usuario> bloco = new ArrayList<>(TAMANHO_BLOCO);
+                Iterator<Usuario> iterator = usuarios.iterator();
+                while (iterator.hasNext()) {
+                    bloco.add(iterator.next());
+                    if (bloco.size() == TAMANHO_BLOCO) {
+                        exportados[0] += escreveBloco(bloco, saida);
+                    }
+                }
+                exportados[0] += escreveBloco(bloco, saida);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao escrever a exportação", e);
+            }
+        });
+        log.info("Exportação concluída: {} usuários em {} ms", exportados[0], System.currentTimeMillis() - inicio);
+    }
+
+    private int escreveBloco(List<Usuario> bloco, OutputStream saida) throws IOException {
+        if (bloco.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = bloco.stream().map(Usuario::getId).toList();
+        Map<Long, List<Endereco>> enderecos = enderecoRepository.buscaPorUsuarios(ids).stream()
+                .collect(Collectors.groupingBy(endereco -> endereco.getUsuario().getId()));
+        Map<Long, List<Telefone>> telefones = telefoneRepository.buscaPorUsuarios(ids).stream()
+                .collect(Collectors.groupingBy(telefone -> telefone.getUsuario().getId()));
+
+        for (Usuario usuario : bloco) {
+            UsuarioDTO dto = usuarioConverter.paraUsuarioDTO(usuario,
+                    enderecos.getOrDefault(usuario.getId(), List.of()),
+                    telefones.getOrDefault(usuario.getId(), List.of()));
+            // O hash da senha não sai na exportação
+            dto.setSenha(null);
+            saida.write(escritorJson.writeValueAsBytes(dto));
+            saida.write('\n');
+        }
+        saida.flush();
+
+        int quantidade = bloco.size();
+        // Desanexa as entidades já escritas para que o contexto de persistência não acumule a tabela inteira
+        bloco.clear();
+        entityManager.clear();
+        return quantidade;
+    }
+}
@@ -0,0 +1,19 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "importacao")
+public class ImportacaoProperties {
+
+    // Usuários gravados por transação; também limita quantos registros ficam em memória
+    private int tamanhoLote = 500;
+
+    // Quantidade máxima de erros detalhados no relatório
+    private int maximoErros = 1000;
+}
@@ -0,0 +1,256 @@
+package com.javanauta.usuario.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.javanauta.usuario.business.converter.UsuarioConverter;
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.ErroImportacaoDTO;
+import com.javanauta.usuario.business.dto.ResultadoImportacaoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
+import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
+import com.javanauta.usuario.infrastructure.security.PasswordEncoderLimitado;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Importação de usuários em massa a partir de NDJSON ou CSV.
+// O arquivo é lido em lotes de tamanho fixo: cada lote é validado, tem as senhas criptografadas em paralelo
+// e é gravado em uma transação própria com inserts em lote, então a memória não cresce com o tamanho do envio.
+// Cada usuário importado gera o evento USUARIO_CRIADO no outbox, na mesma transação que o grava.
+@Slf4j
+@Service
+public class ImportacaoUsuarioService {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String INDICE_EMAIL_UNICO = "ux_usuario_email";
+
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioConverter usuarioConverter;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxUsuario outboxUsuario;
+    private final ObjectReader leitorJson;
+    private final ImportacaoProperties properties;
+    private final Counter importados;
+    private final Counter rejeitados;
+
+    public ImportacaoUsuarioService(UsuarioRepository usuarioRepository, UsuarioConverter usuarioConverter,
+                                    PasswordEncoder passwordEncoder, TransactionTemplate transactionTemplate,
+                                    OutboxUsuario outboxUsuario, ObjectMapper objectMapper,
+                                    ImportacaoProperties properties, MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuarioConverter = usuarioConverter;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxUsuario = outboxUsuario;
+        this.leitorJson = objectMapper.readerFor(UsuarioDTO.class);
+        this.properties = properties;
+        this.importados = Counter.builder("importacao.usuarios")
+                .description("Usuários processados pela importação em massa")
+                .tag("resultado", "importado")
+                .register(meterRegistry);
+        this.rejeitados = Counter.builder("importacao.usuarios")
+                .description("Usuários processados pela importação em massa")
+                .tag("resultado", "rejeitado")
+                .register(meterRegistry);
+    }
+
+    public ResultadoImportacaoDTO importaUsuarios(InputStream corpo, MediaType tipo) {
+        long inicio = System.nanoTime();
+        ResultadoImportacaoDTO resultado = new ResultadoImportacaoDTO();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8));
+
+        try (LeitorImportacao leitor = criaLeitor(reader, tipo)) {
+            List<LeitorImportacao.Registro> lote = new ArrayList<>(properties.getTamanhoLote());
+            LeitorImportacao.Registro registro;
+            while ((registro = leitor.proximo()) != null) {
+                lote.add(registro);
+                if (lote.size() >= properties.getTamanhoLote()) {
+                    importaLote(lote, resultado);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                importaLote(lote, resultado);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Falha ao ler o arquivo de importação", e);
+        }
+
+        resultado.setDuracaoMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("Importação concluída: {} importados e {} rejeitados em {} ms ({} usuários/s)",
+                resultado.getImportados(), resultado.getRejeitados(), resultado.getDuracaoMs(),
+                resultado.getImportados() * 1000 / Math.max(resultado.getDuracaoMs(), 1));
+        return resultado;
+    }
+
+    private LeitorImportacao criaLeitor(BufferedReader reader, MediaType tipo) {
+        if (NDJSON.isCompatibleWith(tipo)) {
+            return LeitorImportacao.ndjson(reader, leitorJson);
+        }
+        if (MediaType.parseMediaType("text/csv").isCompatibleWith(tipo)) {
+            return LeitorImportacao.csv(reader);
+        }
+        throw new IllegalArgumentException("Formato de importação não suportado: " + tipo);
+    }
+
+    private void importaLote(List<LeitorImportacao.Registro> lote, ResultadoImportacaoDTO resultado) {
+        //Validação e emails repetidos dentro do próprio lote
+        List<LeitorImportacao.Registro> validos = new ArrayList<>(lote.size());
+        Set<String> emails = new HashSet<>();
+        for (LeitorImportacao.Registro registro : lote) {
+            resultado.setProcessados(resultado.getProcessados() + 1);
+            String erro = registro.getErro() != null ? registro.getErro() : valida(registro.getUsuario());
+            if (erro == null && !emails.add(emailNormalizado(registro))) {
+                erro = "Email repetido no arquivo";
+            }
+            if (erro != null) {
+                registraErro(resultado, registro, erro);
+            } else {
+                validos.add(registro);
+            }
+        }
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        //Emails já cadastrados, em uma única consulta por lote; evita criptografar senhas que seriam descartadas
+        Set<String> existentes = new HashSet<>(usuarioRepository.buscaEmailsExistentes(emails));
+        validos.removeIf(registro -> {
+            if (existentes.contains(emailNormalizado(registro))) {
+                registraErro(resultado, registro, "Email já cadastrado");
+                return true;
+            }
+            return false;
+        });
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = criptografaSenhas(validos.stream().map(r -> r.getUsuario().getSenha()).toList());
+        for (int i = 0; i < validos.size(); i++) {
+            validos.get(i).getUsuario().setSenha(hashes.get(i));
+        }
+
+        try {
+            List<Usuario> usuarios = validos.stream().map(r -> usuarioConverter.paraUsuario(r.getUsuario())).toList();
+            transactionTemplate.executeWithoutResult(status -> registraCriados(usuarioRepository.saveAllAndFlush(usuarios)));
+            registraImportados(resultado, validos.size());
+        } catch (DataIntegrityViolationException e) {
+            //Algum email foi cadastrado por outra requisição depois da verificação: grava um a um
+            gravaIndividualmente(validos, resultado);
+        }
+    }
+
+    private void gravaIndividualmente(List<LeitorImportacao.Registro> validos, ResultadoImportacaoDTO resultado) {
+        for (LeitorImportacao.Registro registro : validos) {
+            try {
+                //Entidades novas: as do lote que falhou já receberam ids
+                Usuario usuario = usuarioConverter.paraUsuario(registro.getUsuario());
+                transactionTemplate.executeWithoutResult(status ->
+                        registraCriados(List.of(usuarioRepository.saveAndFlush(usuario))));
+                registraImportados(resultado, 1);
+            } catch (DataIntegrityViolationException e) {
+                boolean emailRepetido = e.getCause() instanceof ConstraintViolationException violacao
+                        && INDICE_EMAIL_UNICO.equals(violacao.getConstraintName());
+                registraErro(resultado, registro, emailRepetido ? "Email já cadastrado" : "Dados recusados pelo banco de dados");
+            }
+        }
+    }
+
+    private void registraCriados(List<Usuario> usuarios) {
+        outboxUsuario.registrarNovos(TipoEventoUsuario.USUARIO_CRIADO, usuarios.stream()
+                .map(usuario -> new OutboxUsuario.Evento(usuario.getId(), usuario.getEmail(),
+                        usuarioConverter.paraUsuarioDTO(usuario)))
+                .toList());
+    }
+
+    private List<String> criptografaSenhas(List<String> senhas) {
+        if (passwordEncoder instanceof PasswordEncoderLimitado encoderLimitado) {
+            return encoderLimitado.encodeTodos(senhas);
+        }
+        return senhas.stream().map(passwordEncoder::encode).toList();
+    }
+
+    // Mesmos limites das colunas, para que um registro inválido não derrube o lote inteiro
+    private String valida(UsuarioDTO usuario) {
+        if (usuario == null) {
+            return "Registro vazio";
+        }
+        if (usuario.getEmail() == null || usuario.getEmail().isBlank() || !usuario.getEmail().contains("@")) {
+            return "Email inválido";
+        }
+        if (usuario.getSenha() == null || usuario.getSenha().isBlank()) {
+            return "Senha obrigatória";
+        }
+        if (excede(usuario.getEmail(), 100) || excede(usuario.getNome(), 100)) {
+            return "Nome ou email com mais de 100 caracteres";
+        }
+        if (usuario.getEnderecos() != null) {
+            for (EnderecoDTO endereco : usuario.getEnderecos()) {
+                if (excede(endereco.getComplemento(), 10) || excede(endereco.getCidade(), 150)
+                        || excede(endereco.getEstado(), 2) || excede(endereco.getCep(), 9)
+                        || excede(endereco.getRua(), 255)) {
+                    return "Endereço com campos acima do tamanho permitido";
+                }
+            }
+        }
+        if (usuario.getTelefones() != null) {
+            for (TelefoneDTO telefone : usuario.getTelefones()) {
+                if (excede(telefone.getNumero(), 10) || excede(telefone.getDdd(), 3)) {
+                    return "Telefone com campos acima do tamanho permitido";
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean excede(String valor, int tamanhoMaximo) {
+        return valor != null && valor.length() > tamanhoMaximo;
+    }
+
+    private String emailNormalizado(LeitorImportacao.Registro registro) {
+        return registro.getUsuario().getEmail().toLowerCase(Locale.ROOT);
+    }
+
+    private void registraImportados(ResultadoImportacaoDTO resultado, int quantidade) {
+        resultado.setImportados(resultado.getImportados() + quantidade);
+        importados.increment(quantidade);
+    }
+
+    private void registraErro(ResultadoImportacaoDTO resultado, LeitorImportacao.Registro registro, String mensagem) {
+        resultado.setRejeitados(resultado.getRejeitados() + 1);
+        rejeitados.increment();
+        if (resultado.getErros().size() < properties.getMaximoErros()) {
+            resultado.getErros().add(ErroImportacaoDTO.builder()
+                    .linha(registro.getLinha())
+                    .email(registro.getUsuario() != null ? registro.getUsuario().getEmail() : null)
+                    .mensagem(mensagem)
+                    .build());
+        } else {
+            resultado.setErrosOmitidos(resultado.getErrosOmitidos() + 1);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.javanauta.usuario.business;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Lê os usuários de uma importação um registro por vez, sem carregar o arquivo inteiro em memória.
+// Linhas com problema viram registros com erro, para que o restante do arquivo continue sendo importado.
+abstract class LeitorImportacao implements Closeable {
+
+    protected final BufferedReader reader;
+    protected long numeroLinha;
+
+    protected LeitorImportacao(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    // Devolve o próximo registro ou null no fim do arquivo
+    abstract Registro proximo() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static LeitorImportacao ndjson(BufferedReader reader, ObjectReader leitorJson) {
+        return new Ndjson(reader, leitorJson);
+    }
+
+    static LeitorImportacao csv(BufferedReader reader) {
+        return new Csv(reader);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Registro {
+
+        private final long linha;
+        private final UsuarioDTO usuario;
+        private final String erro;
+
+        static Registro valido(long linha, UsuarioDTO usuario) {
+            return new Registro(linha, usuario, null);
+        }
+
+        static Registro invalido(long linha, String erro) {
+            return new Registro(linha, null, erro);
+        }
+    }
+
+    // Um UsuarioDTO em JSON por linha, com endereços e telefones aninhados como no POST /usuario
+    private static class Ndjson extends LeitorImportacao {
+
+        private final ObjectReader leitorJson;
+
+        Ndjson(BufferedReader reader, ObjectReader leitorJson) {
+            super(reader);
+            this.leitorJson = leitorJson;
+        }
+
+        @Override
+        Registro proximo() throws IOException {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                try {
+                    return Registro.valido(numeroLinha, leitorJson.readValue(linha));
+                } catch (JsonProcessingException e) {
+                    return Registro.invalido(numeroLinha, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    // Cabeçalho com as colunas nome, email, senha, rua, numero, complemento, cidade, estado, cep, ddd e telefone,
+    // separadas por vírgula ou ponto e vírgula. Cada linha traz no máximo um endereço e um telefone;
+    // linhas seguidas com o mesmo email acrescentam endereços e telefones ao mesmo usuário.
+    private static class Csv extends LeitorImportacao {
+
+        private Map<String, Integer> colunas;
+        private char separador;
+        private Registro pendente;
+
+        Csv(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        Registro proximo() throws IOException {
+            if (colunas == null && !lerCabecalho()) {
+                return null;
+            }
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                Registro registro = lerLinha(linha);
+                if (registro.getUsuario() != null && pendente != null && pendente.getUsuario() != null
+                        && registro.getUsuario().getEmail() != null
+                        && registro.getUsuario().getEmail().equalsIgnoreCase(pendente.getUsuario().getEmail())) {
+                    acrescentar(pendente.getUsuario(), registro.getUsuario());
+                    continue;
+                }
+                Registro anterior = pendente;
+                pendente = registro;
+                if (anterior != null) {
+                    return anterior;
+                }
+            }
+            Registro ultimo = pendente;
+            pendente = null;
+            return ultimo;
+        }
+
+        private boolean lerCabecalho() throws IOException {
+            String cabecalho = reader.readLine();
+            if (cabecalho == null) {
+                return false;
+            }
+            numeroLinha++;
+            cabecalho = cabecalho.replace("\uFEFF", ""); // BOM de arquivos salvos no Excel
+            separador = cabecalho.indexOf(';') >= 0 && cabecalho.indexOf(',') < 0 ? ';' : ',';
+            colunas = new HashMap<>();
+            List<String> nomes = separarCampos(cabecalho);
+            for (int i = 0; i < nomes.size(); i++) {
+                colunas.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            return true;
+        }
+
+        private Registro lerLinha(String linha) {
+            List<String> campos = separarCampos(linha);
+            if (campos.size() != colunas.size()) {
+                return Registro.invalido(numeroLinha, "Quantidade de colunas diferente do cabeçalho");
+            }
+            UsuarioDTO usuario = UsuarioDTO.builder()
+                    .nome(campo(campos, "nome"))
+                    .email(campo(campos, "email"))
+                    .senha(campo(campos, "senha"))
+                    .enderecos(new ArrayList<>())
+                    .telefones(new ArrayList<>())
+                    .build();
+
+            String rua = campo(campos, "rua");
+            String cep = campo(campos, "cep");
+            String cidade = campo(campos, "cidade");
+            if (rua != null || cep != null || cidade != null) {
+                String numero = campo(campos, "numero");
+                Long numeroEndereco;
+                try {
+                    numeroEndereco = numero != null ? Long.valueOf(numero) : null;
+                } catch (NumberFormatException e) {
+                    return Registro.invalido(numeroLinha, "Número do endereço inválido: " + numero);
+                }
+                usuario.getEnderecos().add(EnderecoDTO.builder()
+                        .rua(rua)
+                        .numero(numeroEndereco)
+                        .complemento(campo(campos, "complemento"))
+                        .cidade(cidade)
+                        .estado(campo(campos, "estado"))
+                        .cep(cep)
+                        .build());
+            }
+
+            String telefone = campo(campos, "telefone");
+            if (telefone != null) {
+                usuario.getTelefones().add(TelefoneDTO.builder()
+                        .numero(telefone)
+                        .ddd(campo(campos, "ddd"))
+                        .build());
+            }
+            return Registro.valido(numeroLinha, usuario);
+        }
+
+        // Linhas de continuação só contribuem com endereço e telefone
+        private void acrescentar(UsuarioDTO usuario, UsuarioDTO continuacao) {
+            usuario.getEnderecos().addAll(continuacao.getEnderecos());
+            usuario.getTelefones().addAll(continuacao.getTelefones());
+        }
+
+        private String campo(List<String> campos, String nome) {
+            Integer indice = colunas.get(nome);
+            if (indice == null) {
+                return null;
+            }
+            String valor = campos.get(indice).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        // Separa os campos respeitando aspas duplas ("" dentro de aspas representa uma aspa)
+        private List<String> separarCampos(String linha) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder atual = new StringBuilder();
+            boolean entreAspas = false;
+            for (int i = 0; i < linha.length(); i++) {
+                char c = linha.charAt(i);
+                if (entreAspas) {
+                    if (c != '"') {
+                        atual.append(c);
+                    } else if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == separador) {
+                    campos.add(atual.toString());
+                    atual.setLength(0);
+                } else {
+                    atual.append(c);
+                }
+            }
+            campos.add(atual.toString());
+            return campos;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    // false: os eventos continuam sendo gravados, mas esta instância não os publica
+    private boolean relayHabilitado = true;
+
+    // Destino dos eventos: log, arquivo ou webhook
+    private String destino = "log";
+
+    // Intervalo entre as execuções do relay
+    private Duration intervalo = Duration.ofSeconds(1);
+
+    // Eventos reservados e publicados por vez
+    private int tamanhoLote = 100;
+
+    // Validade da reserva de um lote; precisa ser maior que o tempo máximo de publicação (ex.: webhook-timeout).
+    // Se a instância cair no meio da publicação, o lote volta a ser reservado depois desse tempo
+    private Duration reserva = Duration.ofSeconds(30);
+
+    // Arquivo NDJSON do destino "arquivo"
+    private String arquivo = "eventos-usuario.ndjson";
+
+    // URL que recebe cada lote em um POST com um array JSON (destino "webhook")
+    private String webhookUrl;
+
+    private Duration webhookTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,65 @@
+package com.javanauta.usuario.business;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Grava os eventos de alteração de usuários em outbox_usuario dentro da transação que fez a alteração:
+// o evento só existe se a alteração for confirmada, e o RelayOutboxUsuario o publica depois.
+@Component
+public class OutboxUsuario {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter escritorJson;
+
+    public OutboxUsuario(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        // O hash da senha não sai nos eventos
+        this.escritorJson = objectMapper.copy().addMixIn(UsuarioDTO.class, SemSenha.class).writer();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoUsuario tipo, Long idUsuario, String email, Object dados) {
+        // Bloqueia a linha do usuário até o commit: transações que geram eventos do mesmo usuário ficam em fila,
+        // então a ordem dos ids de um usuário é a ordem em que as alterações foram confirmadas
+        jdbcTemplate.query("select id from usuario where id = ? for no key update", rs -> null, idUsuario);
+        jdbcTemplate.update("insert into outbox_usuario (usuario_id, tipo, email, dados) values (?, ?, ?, cast(? as jsonb))",
+                idUsuario, tipo.name(), email, json(dados));
+    }
+
+    // Eventos de usuários inseridos na própria transação, gravados em um único lote. Nenhuma outra transação
+    // enxerga essas linhas antes do commit, então o bloqueio de linha do registrar não é necessário
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarNovos(TipoEventoUsuario tipo, List<Evento> eventos) {
+        jdbcTemplate.batchUpdate("insert into outbox_usuario (usuario_id, tipo, email, dados) values (?, ?, ?, cast(? as jsonb))",
+                eventos.stream()
+                        .map(evento -> new Object[]{evento.idUsuario(), tipo.name(), evento.email(), json(evento.dados())})
+                        .toList());
+    }
+
+    private String json(Object dados) {
+        if (dados == null) {
+            return null;
+        }
+        try {
+            return escritorJson.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o evento de usuário", e);
+        }
+    }
+
+    public record Evento(Long idUsuario, String email, Object dados) {
+    }
+
+    @JsonIgnoreProperties("senha")
+    private abstract static class SemSenha {
+    }
+}
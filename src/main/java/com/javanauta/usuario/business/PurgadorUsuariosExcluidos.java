@@ -0,0 +1,62 @@
+package com.javanauta.usuario.business;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+// Remove em segundo plano os usuários marcados como excluídos, em lotes limitados e uma transação por lote.
+// "for update skip locked" permite rodar em várias instâncias sem que uma espere pela outra.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "exclusao.logica", havingValue = "true")
+public class PurgadorUsuariosExcluidos {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExclusaoProperties properties;
+
+    public PurgadorUsuariosExcluidos(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                     ExclusaoProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "#{@exclusaoProperties.intervaloPurga.toMillis()}")
+    public void purgar() {
+        long total = 0;
+        int removidos;
+        do {
+            removidos = purgarLote();
+            total += removidos;
+        } while (removidos == properties.getTamanhoLotePurga());
+
+        if (total > 0) {
+            log.info("Purgados {} usuários excluídos", total);
+        }
+    }
+
+    private int purgarLote() {
+        Integer removidos = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList("""
+                            select id from usuario where excluido_em is not null
+                            order by id limit :limite for update skip locked""",
+                    Map.of("limite", properties.getTamanhoLotePurga()), Long.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            Map<String, Object> parametros = Map.of("ids", ids);
+            jdbcTemplate.update("delete from endereco where usuario_id in (:ids)", parametros);
+            jdbcTemplate.update("delete from telefone where usuario_id in (:ids)", parametros);
+            jdbcTemplate.update("delete from usuario where id in (:ids)", parametros);
+            return ids.size();
+        });
+        return removidos != null ? removidos : 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import com.javanauta.usuario.infrastructure.eventos.DestinoEventos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Publica os eventos de outbox_usuario em lotes, na ordem dos ids. Cada lote é reservado (reservado_ate) em uma
+// transação curta, publicado fora dela e removido depois da entrega. Só existe um lote reservado por vez entre todas
+// as instâncias, então os eventos de um usuário nunca são entregues fora de ordem.
+// Se o destino falhar, a reserva é liberada e o lote é reenviado na próxima execução (entrega ao menos uma vez).
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.relay-habilitado", havingValue = "true", matchIfMissing = true)
+public class RelayOutboxUsuario {
+
+    // Chave do advisory lock do relay ("outbox" em ASCII)
+    private static final long CHAVE_BLOQUEIO = 0x6F7574626F78L;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DestinoEventos destino;
+    private final OutboxProperties properties;
+    private final Counter publicados;
+    private final Counter falhas;
+
+    public RelayOutboxUsuario(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              DestinoEventos destino, OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.destino = destino;
+        this.properties = properties;
+        this.publicados = Counter.builder("outbox.eventos.publicados")
+                .description("Eventos de usuário entregues ao destino")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("outbox.eventos.falhas")
+                .description("Lotes de eventos de usuário recusados pelo destino")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "#{@outboxProperties.intervalo.toMillis()}")
+    public void publicar() {
+        int quantidade;
+        do {
+            quantidade = publicarLote();
+        } while (quantidade == properties.getTamanhoLote());
+    }
+
+    // Reserva o lote e confirma, publica fora de transação e só então remove os ids entregues em outra transação
+    // curta: nenhuma conexão fica presa enquanto o destino responde
+    private int publicarLote() {
+        List<EventoUsuarioDTO> eventos;
+        try {
+            eventos = transactionTemplate.execute(status -> reservarLote());
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Falha ao reservar eventos de usuário, nova tentativa em {}", properties.getIntervalo(), e);
+            return 0;
+        }
+        if (eventos == null || eventos.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> ids = Map.of("ids", eventos.stream().map(EventoUsuarioDTO::getId).toList());
+        try {
+            destino.publicar(eventos);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Falha ao publicar eventos de usuário, nova tentativa em {}", properties.getIntervalo(), e);
+            // Libera a reserva para o lote ser reenviado na próxima execução, sem esperar a validade dela
+            liberar(ids);
+            return 0;
+        }
+        // Se a remoção falhar, a reserva expira e o lote é reenviado (entrega ao menos uma vez)
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("delete from outbox_usuario where id in (:ids)", ids));
+        publicados.increment(eventos.size());
+        return eventos.size();
+    }
+
+    // O advisory lock serializa as reservas entre instâncias; com outro lote reservado e ainda válido não reserva nada.
+    // Uma reserva vencida (instância que caiu publicando) é reaproveitada pelo próximo lote, que começa nela
+    private List<EventoUsuarioDTO> reservarLote() {
+        Boolean lider = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(:chave)",
+                Map.of("chave", CHAVE_BLOQUEIO), Boolean.class);
+        if (!Boolean.TRUE.equals(lider)) {
+            return List.of();
+        }
+        Boolean reservado = jdbcTemplate.queryForObject(
+                "select exists (select 1 from outbox_usuario where reservado_ate > now())", Map.of(), Boolean.class);
+        if (Boolean.TRUE.equals(reservado)) {
+            return List.of();
+        }
+        List<EventoUsuarioDTO> eventos = jdbcTemplate.query("""
+                        update outbox_usuario set reservado_ate = now() + make_interval(secs => :reserva)
+                        where id in (select id from outbox_usuario order by id limit :limite)
+                        returning id, usuario_id, tipo, email, dados::text as dados, criado_em""",
+                Map.of("reserva", properties.getReserva().toMillis() / 1000.0, "limite", properties.getTamanhoLote()),
+                (rs, linha) -> EventoUsuarioDTO.builder()
+                        .id(rs.getLong("id"))
+                        .idUsuario(rs.getLong("usuario_id"))
+                        .tipo(rs.getString("tipo"))
+                        .email(rs.getString("email"))
+                        .dados(rs.getString("dados"))
+                        .ocorridoEm(rs.getObject("criado_em", OffsetDateTime.class))
+                        .build());
+        // O returning não garante ordem; a entrega segue a ordem dos ids
+        return eventos.stream().sorted(Comparator.comparingLong(EventoUsuarioDTO::getId)).toList();
+    }
+
+    private void liberar(Map<String, Object> ids) {
+        try {
+            jdbcTemplate.update("update outbox_usuario set reservado_ate = null where id in (:ids)", ids);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao liberar a reserva dos eventos de usuário; o lote volta após {}", properties.getReserva(), e);
+        }
+    }
+}
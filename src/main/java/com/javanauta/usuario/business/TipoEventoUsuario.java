@@ -0,0 +1,11 @@
+package com.javanauta.usuario.business;
+
+public enum TipoEventoUsuario {
+    USUARIO_CRIADO,
+    USUARIO_ATUALIZADO,
+    USUARIO_EXCLUIDO,
+    ENDERECO_CADASTRADO,
+    ENDERECO_ATUALIZADO,
+    TELEFONE_CADASTRADO,
+    TELEFONE_ATUALIZADO
+}
@@ -0,0 +1,21 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "usuario.cache")
+public class UsuarioCacheProperties {
+
+    // Quantidade máxima de usuários mantidos em memória
+    private long tamanhoMaximo = 10000;
+
+    // Validade de cada usuário no cache; limita o tempo de uma alteração feita fora desta instância
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -2,27 +2,48 @@ package com.javanauta.usuario.business;
 
 import com.javanauta.usuario.business.converter.UsuarioConverter;
 import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.PaginaUsuariosDTO;
 import com.javanauta.usuario.business.dto.TelefoneDTO;
 import com.javanauta.usuario.business.dto.UsuarioDTO;
 import com.javanauta.usuario.infrastructure.entity.Endereco;
 import com.javanauta.usuario.infrastructure.entity.Telefone;
 import com.javanauta.usuario.infrastructure.entity.Usuario;
 import com.javanauta.usuario.infrastructure.exceptions.ConflictException;
+import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
 import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
 import com.javanauta.usuario.infrastructure.exceptions.UnauthorizedException;
 import com.javanauta.usuario.infrastructure.repository.EnderecoRepository;
+import com.javanauta.usuario.infrastructure.repository.OrdemUsuario;
 import com.javanauta.usuario.infrastructure.repository.TelefoneRepository;
 import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
 import com.javanauta.usuario.infrastructure.security.JwtUtil;
+import com.javanauta.usuario.infrastructure.security.VersaoTokenRegistry;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -35,15 +56,43 @@ public class UsuarioService {
     private final AuthenticationManager authenticationManager;
     private final EnderecoRepository enderecoRepository;
     private final TelefoneRepository telefoneRepository;
+    private final VersaoTokenRegistry versaoTokenRegistry;
+    private final BuscaProperties buscaProperties;
+    private final ExclusaoProperties exclusaoProperties;
+    private final CacheUsuarioDTO cacheUsuarioDTO;
+    private final OutboxUsuario outboxUsuario;
+    private final TransactionTemplate transactionTemplate;
 
 
+    private static final String INDICE_EMAIL_UNICO = "ux_usuario_email";
+
+    //O evento de criação é gravado na mesma transação do usuário. O hash da senha é gerado antes de abrir a
+    //transação, para não segurar uma conexão do pool enquanto espera na fila do BCrypt
     public UsuarioDTO salvaUsuario(UsuarioDTO usuarioDTO) {
-        emailExiste(usuarioDTO.getEmail());
         usuarioDTO.setSenha(passwordEncoder.encode(usuarioDTO.getSenha()));
-        Usuario usuario = usuarioConverter.paraUsuario(usuarioDTO);
-        return usuarioConverter.paraUsuarioDTO(
-                usuarioRepository.save(usuario)
-        );
+        return transactionTemplate.execute(status -> {
+            Usuario usuario = salvaComEmailUnico(usuarioConverter.paraUsuario(usuarioDTO));
+            UsuarioDTO salvo = usuarioConverter.paraUsuarioDTO(usuario);
+            outboxUsuario.registrar(TipoEventoUsuario.USUARIO_CRIADO, usuario.getId(), usuario.getEmail(), salvo);
+            return salvo;
+        });
+    }
+
+    //Grava direto e deixa o índice único do banco recusar emails repetidos, sem consulta prévia
+    private Usuario salvaComEmailUnico(Usuario usuario) {
+        return comEmailUnico(usuario.getEmail(), () -> usuarioRepository.saveAndFlush(usuario));
+    }
+
+    private <T> T comEmailUnico(String email, Supplier<T> gravacao) {
+        try {
+            return gravacao.get();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violacao
+                    && INDICE_EMAIL_UNICO.equals(violacao.getConstraintName())) {
+                throw new ConflictException("Email já cadastrado " + email, e);
+            }
+            throw e;
+        }
     }
 
     public String autenticarUsuario(UsuarioDTO usuarioDTO) {
@@ -52,107 +101,257 @@ public class UsuarioService {
                     new UsernamePasswordAuthenticationToken(usuarioDTO.getEmail(),
                             usuarioDTO.getSenha())
             );
-            return "Bearer " + jwtUtil.generateToken(authentication.getName());
+            Usuario usuario = (Usuario) authentication.getPrincipal();
+            List<String> autoridades = usuario.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+            return "Bearer " + jwtUtil.generateToken(usuario.getEmail(), usuario.getId(), versaoToken(usuario),
+                    autoridades);
 
         } catch (BadCredentialsException | UsernameNotFoundException | AuthorizationDeniedException e) {
             throw new UnauthorizedException("Usuário ou senha inválidos: ", e.getCause());
+        } catch (InternalAuthenticationServiceException e) {
+            //Fila de verificação de senhas cheia: devolve 503 em vez de erro interno
+            if (e.getCause() instanceof ServicoIndisponivelException indisponivel) {
+                throw indisponivel;
+            }
+            throw e;
         }
     }
 
-    public void emailExiste(String email) {
+    public UsuarioDTO buscarUsuarioPorEmail(String email) {
         try {
-            boolean existe = verificaEmailExistente(email);
-            if (existe) {
-                throw new ConflictException("Email já cadastrado " + email);
-            }
-        } catch (ConflictException e) {
-            throw new ConflictException("Email já cadastrado ", e.getCause());
+            return cacheUsuarioDTO.buscar(email, chave -> usuarioConverter.paraUsuarioDTO(
+                    usuarioRepository.buscaCompletoPorEmail(chave)
+                            .orElseThrow(
+                                    () -> new ResourceNotFoundException("Email não encontrado " + chave)
+                            )
+            ));
+        } catch (ResourceNotFoundException e) {
+            throw new ResourceNotFoundException("Email não encontrado " + email);
         }
     }
 
-    public boolean verificaEmailExistente(String email) {
 
-        return usuarioRepository.existsByEmail(email);
+    private static final int TAMANHO_MAXIMO_PAGINA = 200;
+
+    //Listagem paginada por chave: o cursor guarda a ordenação e a última chave da página anterior
+    @Transactional(readOnly = true)
+    public PaginaUsuariosDTO listaUsuarios(String ordem, String cursor, int tamanho,
+                                           String nome, String estado, String cidade) {
+        OrdemUsuario ordemUsuario = ordemListagem(ordem);
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        Object depoisDe = cursor != null ? leCursor(cursor, ordemUsuario) : null;
+
+        //Busca um a mais para saber se existe próxima página
+        List<Usuario> usuarios = usuarioRepository.buscaPagina(ordemUsuario, depoisDe,
+                vazioParaNulo(nome), vazioParaNulo(estado), vazioParaNulo(cidade), tamanhoPagina + 1);
+        boolean temProxima = usuarios.size() > tamanhoPagina;
+        if (temProxima) {
+            usuarios = usuarios.subList(0, tamanhoPagina);
+        }
+
+        //Endereços e telefones da página em duas consultas
+        List<Long> ids = usuarios.stream().map(Usuario::getId).toList();
+        Map<Long, List<Endereco>> enderecos = ids.isEmpty() ? Map.of() : enderecoRepository.buscaPorUsuarios(ids)
+                .stream().collect(Collectors.groupingBy(endereco -> endereco.getUsuario().getId()));
+        Map<Long, List<Telefone>> telefones = ids.isEmpty() ? Map.of() : telefoneRepository.buscaPorUsuarios(ids)
+                .stream().collect(Collectors.groupingBy(telefone -> telefone.getUsuario().getId()));
+
+        List<UsuarioDTO> pagina = usuarios.stream().map(usuario -> {
+            UsuarioDTO dto = usuarioConverter.paraUsuarioDTO(usuario,
+                    enderecos.getOrDefault(usuario.getId(), List.of()),
+                    telefones.getOrDefault(usuario.getId(), List.of()));
+            dto.setSenha(null);
+            return dto;
+        }).toList();
+
+        String proximoCursor = temProxima ? criaCursor(ordemUsuario, usuarios.get(usuarios.size() - 1)) : null;
+        return PaginaUsuariosDTO.builder().usuarios(pagina).proximoCursor(proximoCursor).build();
     }
 
-    public UsuarioDTO buscarUsuarioPorEmail(String email) {
+    //Busca tolerante a erros de digitação no nome ou email, ordenada pela semelhança com o termo
+    @Transactional(readOnly = true)
+    public List<UsuarioDTO> buscaUsuariosPorSemelhanca(String termo, int limite) {
+        String termoBusca = vazioParaNulo(termo);
+        if (termoBusca == null || termoBusca.length() < buscaProperties.getTamanhoMinimoTermo()) {
+            throw new IllegalArgumentException("Informe ao menos " + buscaProperties.getTamanhoMinimoTermo()
+                    + " caracteres para a busca");
+        }
         try {
-            return usuarioConverter.paraUsuarioDTO(
-                    usuarioRepository.findByEmail(email)
-                            .orElseThrow(
-                                    () -> new ResourceNotFoundException("Email não encontrado " + email)
-                            )
-            );
-        } catch (ResourceNotFoundException e) {
-            throw new ResourceNotFoundException("Email não encontrado " + email);
+            return usuarioRepository.buscaPorSemelhanca(termoBusca, buscaProperties.getSemelhancaMinima(),
+                            buscaProperties.getTempoMaximo().toMillis(),
+                            Math.max(1, Math.min(limite, buscaProperties.getLimiteMaximo())))
+                    .stream()
+                    .map(usuario -> {
+                        UsuarioDTO dto = usuarioConverter.paraUsuarioDTO(usuario, null, null);
+                        dto.setSenha(null);
+                        return dto;
+                    })
+                    .toList();
+        } catch (QueryTimeoutException e) {
+            throw new ServicoIndisponivelException("Busca demorou demais, refine o termo e tente novamente", e);
         }
     }
 
+    private OrdemUsuario ordemListagem(String ordem) {
+        try {
+            return OrdemUsuario.valueOf(ordem.toUpperCase(Locale.ROOT));
+        } catch (java.lang.IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ordenação inválida: " + ordem);
+        }
+    }
 
-    public void deletaUsuarioPorEmail(String email) {
+    private String criaCursor(OrdemUsuario ordem, Usuario ultimo) {
+        String chave = ordem == OrdemUsuario.EMAIL ? ultimo.getEmail().toLowerCase(Locale.ROOT) : ultimo.getId().toString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((ordem.name() + ":" + chave).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object leCursor(String cursor, OrdemUsuario ordem) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefixo = ordem.name() + ":";
+            if (!conteudo.startsWith(prefixo)) {
+                throw new IllegalArgumentException("Cursor não corresponde à ordenação " + ordem.name().toLowerCase(Locale.ROOT));
+            }
+            String chave = conteudo.substring(prefixo.length());
+            return ordem == OrdemUsuario.EMAIL ? chave : Long.valueOf(chave);
+        } catch (java.lang.IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
 
-        usuarioRepository.deleteByEmail(email);
+    private String vazioParaNulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    //Exclusão com DELETEs por conjunto (filhos e depois o usuário), sem carregar entidades;
+    //no modo lógico só marca o usuário e o purgador remove as linhas depois
+    @Transactional
+    public void deletaUsuarioPorEmail(String email) {
+        usuarioRepository.buscaIdPorEmail(email).ifPresent(id -> {
+            //Invalida os tokens já emitidos para o usuário excluído
+            versaoTokenRegistry.revogar(id);
+            cacheUsuarioDTO.invalidar(email);
+            outboxUsuario.registrar(TipoEventoUsuario.USUARIO_EXCLUIDO, id, email, null);
+            if (exclusaoProperties.isLogica()) {
+                usuarioRepository.marcaComoExcluido(id);
+            } else {
+                enderecoRepository.deletaPorUsuario(id);
+                telefoneRepository.deletaPorUsuario(id);
+                usuarioRepository.deletaPorId(id);
+            }
+        });
     }
 
     public UsuarioDTO atualizaDadosUsuario(String token, UsuarioDTO dto) {
         //Aqui buscamos o email do usuário através do token (tirar a obrigatoriedade do email)
         String email = jwtUtil.extrairEmailToken(token.substring(7));
 
-        //Criptografia de senha
+        //Criptografia de senha, fora da transação como no cadastro
         dto.setSenha(dto.getSenha() != null ? passwordEncoder.encode(dto.getSenha()) : null);
 
-        //Busca os dados do usuário no banco de dados
-        Usuario usuarioEntity = usuarioRepository.findByEmail(email).orElseThrow(() ->
+        return transactionTemplate.execute(status -> atualizaUsuario(email, dto));
+    }
+
+    private UsuarioDTO atualizaUsuario(String email, UsuarioDTO dto) {
+        //Busca os dados do usuário no banco de dados, já com endereços e telefones
+        Usuario usuarioEntity = usuarioRepository.buscaCompletoPorEmail(email).orElseThrow(() ->
                 new ResourceNotFoundException("Email não localizado"));
 
-        //Mesclou os dados que recebemos na requisição DTO com os dados do banco de dados
-        Usuario usuario = usuarioConverter.updateUsuario(dto, usuarioEntity);
+        //Aplica na entidade gerenciada só os campos recebidos na requisição
+        cacheUsuarioDTO.invalidar(usuarioEntity.getEmail());
+        usuarioConverter.updateUsuario(dto, usuarioEntity);
+        cacheUsuarioDTO.invalidar(usuarioEntity.getEmail());
 
-        //Salvou os dados do usuário convertido e depois pegou o retorno e converteu para UsuarioDTO
-        return usuarioConverter.paraUsuarioDTO(usuarioRepository.save(usuario));
+        //Troca de senha invalida os tokens emitidos anteriormente
+        if (dto.getSenha() != null) {
+            usuarioEntity.setVersaoToken(versaoToken(usuarioEntity) + 1);
+        }
+
+        //Sem save/merge: o flush envia um UPDATE apenas com as colunas alteradas
+        comEmailUnico(usuarioEntity.getEmail(), () -> {
+            usuarioRepository.flush();
+            return usuarioEntity;
+        });
+        if (dto.getSenha() != null) {
+            versaoTokenRegistry.atualizar(usuarioEntity.getId(), versaoToken(usuarioEntity));
+        }
+        UsuarioDTO atualizado = usuarioConverter.paraUsuarioDTO(usuarioEntity);
+        outboxUsuario.registrar(TipoEventoUsuario.USUARIO_ATUALIZADO, usuarioEntity.getId(),
+                usuarioEntity.getEmail(), atualizado);
+        return atualizado;
     }
 
+    private int versaoToken(Usuario usuario) {
+        return usuario.getVersaoToken() != null ? usuario.getVersaoToken() : 0;
+    }
+
+    //Atualizações parciais: altera a entidade gerenciada e o commit grava só as colunas modificadas
+    @Transactional
     public EnderecoDTO atualizaEndereco(Long idEndereco, EnderecoDTO enderecoDTO) {
 
         Endereco entity = enderecoRepository.findById(idEndereco).orElseThrow(() ->
                 new ResourceNotFoundException("Id não encontrado " + idEndereco));
 
-        Endereco endereco = usuarioConverter.updateEndereco(enderecoDTO, entity);
+        usuarioConverter.updateEndereco(enderecoDTO, entity);
+        Usuario usuario = entity.getUsuario();
+        cacheUsuarioDTO.invalidar(usuario.getEmail());
 
-        return usuarioConverter.paraEnderecoDTO(enderecoRepository.save(endereco));
+        EnderecoDTO atualizado = usuarioConverter.paraEnderecoDTO(entity);
+        outboxUsuario.registrar(TipoEventoUsuario.ENDERECO_ATUALIZADO, usuario.getId(), usuario.getEmail(), atualizado);
+        return atualizado;
 
     }
 
+    @Transactional
     public TelefoneDTO atualizaTelefone(Long idTelefone, TelefoneDTO dto) {
 
         Telefone entity = telefoneRepository.findById(idTelefone).orElseThrow(() ->
                 new ResourceNotFoundException("Id não encontrado " + idTelefone));
 
-        Telefone telefone = usuarioConverter.updateTelefone(dto, entity);
+        usuarioConverter.updateTelefone(dto, entity);
+        Usuario usuario = entity.getUsuario();
+        cacheUsuarioDTO.invalidar(usuario.getEmail());
 
-        return usuarioConverter.paraTelefoneDTO(telefoneRepository.save(telefone));
+        TelefoneDTO atualizado = usuarioConverter.paraTelefoneDTO(entity);
+        outboxUsuario.registrar(TipoEventoUsuario.TELEFONE_ATUALIZADO, usuario.getId(), usuario.getEmail(), atualizado);
+        return atualizado;
 
     }
 
-    public EnderecoDTO cadastraEndereco(String token, EnderecoDTO dto) {
+    //Com enriquecer, grava na hora e deixa rua, cidade e estado ausentes para o EnriquecedorEnderecos,
+    //sem consultar o ViaCep durante a requisição
+    @Transactional
+    public EnderecoDTO cadastraEndereco(String token, EnderecoDTO dto, boolean enriquecer) {
         String email = jwtUtil.extrairEmailToken(token.substring(7));
         Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() ->
                 new ResourceNotFoundException("Email não localizado " + email));
 
-        Endereco endereco = usuarioConverter.paraEnderecoEntity(dto, usuario.getId());
+        Endereco endereco = usuarioConverter.paraEnderecoEntity(dto, usuario);
+        if (enriquecer && dto.getCep() != null
+                && (dto.getRua() == null || dto.getCidade() == null || dto.getEstado() == null)) {
+            endereco.setEnriquecerEm(OffsetDateTime.now());
+        }
         Endereco enderecoEntity = enderecoRepository.save(endereco);
-        return usuarioConverter.paraEnderecoDTO(enderecoEntity);
+        cacheUsuarioDTO.invalidar(usuario.getEmail());
+        EnderecoDTO cadastrado = usuarioConverter.paraEnderecoDTO(enderecoEntity);
+        outboxUsuario.registrar(TipoEventoUsuario.ENDERECO_CADASTRADO, usuario.getId(), usuario.getEmail(), cadastrado);
+        return cadastrado;
     }
 
+    @Transactional
     public TelefoneDTO cadastraTelefone(String token, TelefoneDTO dto) {
         String email = jwtUtil.extrairEmailToken(token.substring(7));
         Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() ->
                 new ResourceNotFoundException("Email não localizado " + email));
 
-        Telefone telefone = usuarioConverter.paraTelefoneEntity(dto, usuario.getId());
-        return usuarioConverter.paraTelefoneDTO(
+        Telefone telefone = usuarioConverter.paraTelefoneEntity(dto, usuario);
+        cacheUsuarioDTO.invalidar(usuario.getEmail());
+        TelefoneDTO cadastrado = usuarioConverter.paraTelefoneDTO(
                 telefoneRepository.save(telefone)
         );
+        outboxUsuario.registrar(TipoEventoUsuario.TELEFONE_CADASTRADO, usuario.getId(), usuario.getEmail(), cadastrado);
+        return cadastrado;
     }
 
 
@@ -0,0 +1,86 @@
+package com.javanauta.usuario.business;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "viacep")
+public class ViaCepProperties {
+
+    private final Cache cache = new Cache();
+    private final Diretorio diretorio = new Diretorio();
+    private final Resiliencia resiliencia = new Resiliencia();
+    private final Lote lote = new Lote();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        // Quantidade máxima de CEPs mantidos em memória
+        private long tamanhoMaximo = 20000;
+
+        // Validade de um CEP encontrado
+        private Duration ttl = Duration.ofDays(1);
+
+        // Validade de um CEP inexistente
+        private Duration ttlNaoEncontrado = Duration.ofHours(1);
+
+        // Idade a partir da qual uma busca devolve o valor em cache e o revalida no ViaCep em segundo plano
+        private Duration revalidarApos = Duration.ofHours(12);
+    }
+
+    @Getter
+    @Setter
+    public static class Diretorio {
+
+        // Caminho do CSV com a base local de CEPs; vazio desabilita o diretório
+        private String arquivo;
+    }
+
+    @Getter
+    @Setter
+    public static class Resiliencia {
+
+        // Bulkhead: chamadas simultâneas ao ViaCep e espera máxima por uma vaga
+        private int maxChamadasSimultaneas = 20;
+        private Duration esperaMaxima = Duration.ofMillis(100);
+
+        // Circuit breaker: abre quando a taxa de falhas ou de chamadas lentas passa do limite na janela
+        private float taxaFalhas = 50;
+        private float taxaChamadasLentas = 80;
+        private Duration chamadaLenta = Duration.ofSeconds(2);
+        private int janela = 20;
+        private int minimoChamadas = 10;
+        private Duration tempoAberto = Duration.ofSeconds(30);
+        private int chamadasMeioAberto = 3;
+
+        // Serve o último endereço conhecido quando o ViaCep está fora do ar
+        private boolean servirObsoleto = true;
+        private long obsoletoTamanhoMaximo = 50000;
+        private Duration obsoletoTtl = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class Lote {
+
+        // Quantidade máxima de CEPs resolvidos ao mesmo tempo, somando todos os lotes em andamento
+        private int paralelismo = 8;
+
+        // Paralelismo com spring.threads.virtual.enabled=true. Um CEP esperando o ViaCep não ocupa thread da
+        // plataforma, então o limite pode acompanhar o bulkhead (resiliencia.max-chamadas-simultaneas)
+        private int paralelismoVirtual = 20;
+
+        // CEPs aguardando uma thread livre, somando todos os lotes; com a fila cheia o lote é recusado com 503
+        private int capacidadeFila = 200;
+
+        // Quantidade máxima de CEPs por requisição
+        private int tamanhoMaximo = 100;
+    }
+}
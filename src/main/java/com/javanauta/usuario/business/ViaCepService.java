@@ -1,21 +1,212 @@
 package com.javanauta.usuario.business;
 
-import com.javanauta.usuario.infrastructure.clients.ViaCepClient;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.javanauta.usuario.business.dto.ResultadoCepDTO;
+import com.javanauta.usuario.infrastructure.clients.DiretorioCep;
+import com.javanauta.usuario.infrastructure.clients.ViaCepClientResiliente;
 import com.javanauta.usuario.infrastructure.clients.ViaCepDTO;
 import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
-import lombok.RequiredArgsConstructor;
+import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 public class ViaCepService {
 
-    private final ViaCepClient client;
+    // Marca no cache os CEPs que o ViaCep informou como inexistentes
+    private static final ViaCepDTO NAO_ENCONTRADO = new ViaCepDTO();
+
+    private final ViaCepClientResiliente client;
+    private final DiretorioCep diretorioCep;
+    // Threads e fila das revalidações em segundo plano; com a fila cheia a revalidação fica para a próxima busca
+    private static final int THREADS_REVALIDACAO = 2;
+    private static final int FILA_REVALIDACAO = 1000;
+
+    private final AsyncLoadingCache<String, ViaCepDTO> cache;
+    private final ExecutorService executorRevalidacao;
+    // Último endereço conhecido de cada CEP, usado quando o ViaCep está indisponível
+    private final Cache<String, ViaCepDTO> obsoletos;
+    private final Counter obsoletosServidos;
+    // Resolve os CEPs das consultas em lote com paralelismo limitado
+    private final ExecutorService executorLote;
+    private final int tamanhoMaximoLote;
+
+    public ViaCepService(ViaCepClientResiliente client, DiretorioCep diretorioCep, ViaCepProperties properties,
+                         MeterRegistry meterRegistry,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        this.client = client;
+        this.diretorioCep = diretorioCep;
+        this.executorRevalidacao = criarExecutor("cep-revalidacao-", THREADS_REVALIDACAO, FILA_REVALIDACAO,
+                threadsVirtuais);
+        // Stale-while-revalidate: depois de revalidar-apos, a busca devolve o valor em cache na hora e o
+        // loader o consulta de novo no ViaCep em segundo plano. Se a revalidação falhar, o Caffeine mantém
+        // o valor anterior até a expiração. O loader só é usado nas revalidações; as cargas passam pela CargaUnica
+        AsyncCacheLoader<String, ViaCepDTO> revalidacao = (cep, executor) ->
+                CompletableFuture.supplyAsync(() -> consultarViaCep(cep), executorRevalidacao);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getTamanhoMaximo())
+                .expireAfter(new ExpiracaoCep(properties.getCache()))
+                .refreshAfterWrite(properties.getCache().getRevalidarApos())
+                .recordStats()
+                .buildAsync(revalidacao);
+        // Expõe acertos, faltas e remoções em cache.gets / cache.evictions com a tag cache=viacep
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "viacep");
+
+        ViaCepProperties.Resiliencia resiliencia = properties.getResiliencia();
+        this.obsoletos = resiliencia.isServirObsoleto()
+                ? Caffeine.newBuilder()
+                        .maximumSize(resiliencia.getObsoletoTamanhoMaximo())
+                        .expireAfterWrite(resiliencia.getObsoletoTtl())
+                        .build()
+                : null;
+        this.obsoletosServidos = Counter.builder("viacep.obsoletos.servidos")
+                .description("Endereços servidos da cópia obsoleta por indisponibilidade do ViaCep")
+                .register(meterRegistry);
+
+        int paralelismo = threadsVirtuais
+                ? properties.getLote().getParalelismoVirtual()
+                : properties.getLote().getParalelismo();
+        this.executorLote = criarExecutor("cep-lote-", paralelismo, properties.getLote().getCapacidadeFila(),
+                threadsVirtuais);
+        this.tamanhoMaximoLote = properties.getLote().getTamanhoMaximo();
+    }
+
+    // Com virtual threads, os limites do pool fixo passam a ser semáforos: a espera pelo ViaCep não prende
+    // threads da plataforma, e uma tarefa além do limite continua sendo rejeitada na hora
+    private static ExecutorService criarExecutor(String prefixo, int paralelismo, int capacidadeFila,
+                                                 boolean threadsVirtuais) {
+        if (threadsVirtuais) {
+            return new ExecutorVirtualLimitado(prefixo, paralelismo, capacidadeFila);
+        }
+        return new ThreadPoolExecutor(paralelismo, paralelismo, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                new CustomizableThreadFactory(prefixo), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executorLote.shutdown();
+        executorRevalidacao.shutdown();
+    }
 
     public ViaCepDTO buscarDadosEndereco(String cep) {
-            return client.buscaDadosEndereco(processarCep(cep));
+        String cepFormatado = processarCep(cep);
+        // CEPs presentes no diretório local não dependem do ViaCep
+        ViaCepDTO local = diretorioCep.buscar(cepFormatado);
+        if (local != null) {
+            return local;
+        }
+        ViaCepDTO endereco;
+        try {
+            // Buscas simultâneas pelo mesmo CEP aguardam uma única chamada ao ViaCep, feita fora do lock do cache
+            endereco = CargaUnica.buscar(cache, cepFormatado, this::consultarViaCep);
+        } catch (CallNotPermittedException | BulkheadFullException | FeignException e) {
+            // Falhas não entram no cache: a próxima busca tenta o ViaCep de novo (ou falha rápido com o circuito aberto)
+            endereco = buscarObsoleto(cepFormatado, e);
+        }
+        if (endereco == NAO_ENCONTRADO) {
+            throw new ResourceNotFoundException("CEP não encontrado " + cep);
+        }
+        return endereco;
+    }
+
+    // Resolve vários CEPs de uma vez: valida cada um e busca os válidos em paralelo, uma vez por CEP normalizado.
+    // O resultado usa o texto enviado pelo cliente como chave, na ordem da lista.
+    // Falhas de um CEP aparecem apenas no resultado dele, sem interromper o lote.
+    public Map<String, ResultadoCepDTO> buscarDadosEnderecos(List<String> ceps) {
+        if (ceps == null || ceps.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um cep");
+        }
+        if (ceps.size() > tamanhoMaximoLote) {
+            throw new IllegalArgumentException("O lote aceita no máximo " + tamanhoMaximoLote + " ceps");
+        }
+
+        // CEP enviado -> CEP normalizado (null quando inválido)
+        Map<String, String> normalizados = new LinkedHashMap<>();
+        Map<String, CompletableFuture<ViaCepDTO>> buscas = new HashMap<>();
+        try {
+            for (String cep : ceps) {
+                String entrada = String.valueOf(cep);
+                if (normalizados.containsKey(entrada)) {
+                    continue;
+                }
+                String cepFormatado;
+                try {
+                    cepFormatado = processarCep(cep);
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    normalizados.put(entrada, null);
+                    continue;
+                }
+                normalizados.put(entrada, cepFormatado);
+                buscas.computeIfAbsent(cepFormatado, c ->
+                        CompletableFuture.supplyAsync(() -> buscarDadosEndereco(c), executorLote));
+            }
+        } catch (RejectedExecutionException e) {
+            // Fila do executor cheia: desiste do lote inteiro em vez de acumular trabalho sem limite
+            buscas.values().forEach(busca -> busca.cancel(false));
+            throw new ServicoIndisponivelException("Muitas consultas de CEP em andamento, tente novamente", e);
+        }
+
+        Map<String, ResultadoCepDTO> resultado = new LinkedHashMap<>();
+        normalizados.forEach((entrada, cepFormatado) -> resultado.put(entrada, cepFormatado != null
+                ? aguardar(buscas.get(cepFormatado))
+                : ResultadoCepDTO.builder().erro("O cep contém caracteres inválidos, favor verificar").build()));
+        return resultado;
+    }
+
+    private ResultadoCepDTO aguardar(CompletableFuture<ViaCepDTO> busca) {
+        try {
+            return ResultadoCepDTO.builder().endereco(busca.join()).build();
+        } catch (CompletionException e) {
+            return ResultadoCepDTO.builder().erro(e.getCause().getMessage()).build();
+        }
+    }
+
+    private ViaCepDTO consultarViaCep(String cep) {
+        ViaCepDTO endereco = client.buscaDadosEndereco(cep);
+        // O ViaCep responde {"erro": true} para CEPs inexistentes
+        if (endereco == null || endereco.getCep() == null) {
+            return NAO_ENCONTRADO;
+        }
+        if (obsoletos != null) {
+            obsoletos.put(cep, endereco);
+        }
+        return endereco;
+    }
+
+    private ViaCepDTO buscarObsoleto(String cep, RuntimeException falha) {
+        ViaCepDTO obsoleto = obsoletos != null ? obsoletos.getIfPresent(cep) : null;
+        if (obsoleto == null) {
+            throw new ServicoIndisponivelException("Serviço de CEP indisponível, tente novamente", falha);
+        }
+        obsoletosServidos.increment();
+        return obsoleto;
     }
 
 
@@ -32,5 +223,31 @@ public class ViaCepService {
         return cepFormatado;
     }
 
+    // CEPs inexistentes ficam menos tempo no cache que os encontrados
+    private static class ExpiracaoCep implements Expiry<String, ViaCepDTO> {
+
+        private final long ttl;
+        private final long ttlNaoEncontrado;
+
+        ExpiracaoCep(ViaCepProperties.Cache properties) {
+            this.ttl = properties.getTtl().toNanos();
+            this.ttlNaoEncontrado = properties.getTtlNaoEncontrado().toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String cep, ViaCepDTO endereco, long currentTime) {
+            return endereco == NAO_ENCONTRADO ? ttlNaoEncontrado : ttl;
+        }
+
+        @Override
+        public long expireAfterUpdate(String cep, ViaCepDTO endereco, long currentTime, long currentDuration) {
+            return expireAfterCreate(cep, endereco, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String cep, ViaCepDTO endereco, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 
 }
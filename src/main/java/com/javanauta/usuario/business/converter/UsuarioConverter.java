@@ -15,7 +15,7 @@ import java.util.List;
 public class UsuarioConverter {
 
     public Usuario paraUsuario(UsuarioDTO usuarioDTO){
-        return Usuario.builder()
+        Usuario usuario = Usuario.builder()
                 .nome(usuarioDTO.getNome())
                 .email(usuarioDTO.getEmail())
                 .senha(usuarioDTO.getSenha())
@@ -24,6 +24,14 @@ public class UsuarioConverter {
                 .telefones(usuarioDTO.getTelefones() != null ?
                         paraListaTelefones(usuarioDTO.getTelefones()) : null)
                 .build();
+        // Os filhos apontam para o usuário, que é o lado dono da chave usuario_id
+        if (usuario.getEnderecos() != null) {
+            usuario.getEnderecos().forEach(endereco -> endereco.setUsuario(usuario));
+        }
+        if (usuario.getTelefones() != null) {
+            usuario.getTelefones().forEach(telefone -> telefone.setUsuario(usuario));
+        }
+        return usuario;
     }
 
     public List<Endereco> paraListaEndereco(List<EnderecoDTO> enderecoDTOS){
@@ -57,14 +65,17 @@ public class UsuarioConverter {
     }
 
     public UsuarioDTO paraUsuarioDTO(Usuario usuarioDTO){
+        return paraUsuarioDTO(usuarioDTO, usuarioDTO.getEnderecos(), usuarioDTO.getTelefones());
+    }
+
+    // Para quando endereços e telefones foram carregados à parte, sem passar pelas coleções da entidade
+    public UsuarioDTO paraUsuarioDTO(Usuario usuario, List<Endereco> enderecos, List<Telefone> telefones){
         return UsuarioDTO.builder()
-                .nome(usuarioDTO.getNome())
-                .email(usuarioDTO.getEmail())
-                .senha(usuarioDTO.getSenha())
-                .enderecos(usuarioDTO.getEnderecos() != null ?
-                        paraListaEnderecoDTO(usuarioDTO.getEnderecos()) : null)
-                .telefones(usuarioDTO.getTelefones() != null ?
-                        paraListaTelefonesDTO(usuarioDTO.getTelefones()) : null)
+                .nome(usuario.getNome())
+                .email(usuario.getEmail())
+                .senha(usuario.getSenha())
+                .enderecos(enderecos != null ? paraListaEnderecoDTO(enderecos) : null)
+                .telefones(telefones != null ? paraListaTelefonesDTO(telefones) : null)
                 .build();
     }
 
@@ -85,6 +96,7 @@ public class UsuarioConverter {
                 .complemento(endereco.getComplemento())
                 .cep(endereco.getCep())
                 .estado(endereco.getEstado())
+                .enriquecimentoPendente(endereco.getEnriquecerEm() != null)
                 .build();
     }
 
@@ -100,40 +112,51 @@ public class UsuarioConverter {
                 .build();
     }
 
-    public Usuario updateUsuario(UsuarioDTO usuarioDTO, Usuario entity){
-        return Usuario.builder()
-                .nome(usuarioDTO.getNome() != null ? usuarioDTO.getNome() : entity.getNome())
-                .id(entity.getId())
-                .senha(usuarioDTO.getSenha() !=null ? usuarioDTO.getSenha() : entity.getSenha())
-                .email(usuarioDTO.getEmail() != null ? usuarioDTO.getEmail() : entity.getEmail())
-                .enderecos(entity.getEnderecos())
-                .telefones(entity.getTelefones())
-                .build();
+    // Os métodos update alteram apenas os campos informados na entidade gerenciada;
+    // o dirty checking do Hibernate gera um UPDATE só com as colunas que mudaram
+    public void updateUsuario(UsuarioDTO usuarioDTO, Usuario entity){
+        if (usuarioDTO.getNome() != null) {
+            entity.setNome(usuarioDTO.getNome());
+        }
+        if (usuarioDTO.getSenha() != null) {
+            entity.setSenha(usuarioDTO.getSenha());
+        }
+        if (usuarioDTO.getEmail() != null) {
+            entity.setEmail(usuarioDTO.getEmail());
+        }
     }
 
-    public Endereco updateEndereco(EnderecoDTO dto, Endereco entity){
-        return Endereco.builder()
-                .id(entity.getId())
-                .rua(dto.getRua() != null ? dto.getRua() :  entity.getRua())
-                .numero(dto.getNumero() != null ? dto.getNumero() : entity.getNumero())
-                .cidade(dto.getCidade() != null ? dto.getCidade() : entity.getCidade())
-                .cep(dto.getCep() != null ? dto.getCep() : entity.getCep())
-                .complemento(dto.getComplemento() != null ? dto.getComplemento() : entity.getComplemento())
-                .estado(dto.getEstado() != null ? dto.getEstado() : entity.getEstado())
-                .usuario_id(entity.getUsuario_id())
-                .build();
+    public void updateEndereco(EnderecoDTO dto, Endereco entity){
+        if (dto.getRua() != null) {
+            entity.setRua(dto.getRua());
+        }
+        if (dto.getNumero() != null) {
+            entity.setNumero(dto.getNumero());
+        }
+        if (dto.getCidade() != null) {
+            entity.setCidade(dto.getCidade());
+        }
+        if (dto.getCep() != null) {
+            entity.setCep(dto.getCep());
+        }
+        if (dto.getComplemento() != null) {
+            entity.setComplemento(dto.getComplemento());
+        }
+        if (dto.getEstado() != null) {
+            entity.setEstado(dto.getEstado());
+        }
     }
 
-    public Telefone updateTelefone(TelefoneDTO dto, Telefone entity){
-        return Telefone.builder()
-                .id(entity.getId())
-                .ddd(dto.getDdd() != null ? dto.getDdd() : entity.getDdd())
-                .numero(dto.getNumero() != null ? dto.getNumero() : entity.getNumero())
-                .usuario_id(entity.getUsuario_id())
-                .build();
+    public void updateTelefone(TelefoneDTO dto, Telefone entity){
+        if (dto.getDdd() != null) {
+            entity.setDdd(dto.getDdd());
+        }
+        if (dto.getNumero() != null) {
+            entity.setNumero(dto.getNumero());
+        }
     }
 
-    public Endereco paraEnderecoEntity(EnderecoDTO dto, Long idUsuario){
+    public Endereco paraEnderecoEntity(EnderecoDTO dto, Usuario usuario){
         return Endereco.builder()
                 .rua(dto.getRua())
                 .cidade(dto.getCidade())
@@ -141,15 +164,15 @@ public class UsuarioConverter {
                 .complemento(dto.getComplemento())
                 .estado(dto.getEstado())
                 .numero(dto.getNumero())
-                .usuario_id(idUsuario)
+                .usuario(usuario)
                 .build();
     }
 
-    public Telefone paraTelefoneEntity(TelefoneDTO dto, Long idUsuario){
+    public Telefone paraTelefoneEntity(TelefoneDTO dto, Usuario usuario){
         return Telefone.builder()
                 .numero(dto.getNumero())
                 .ddd(dto.getDdd())
-                .usuario_id(idUsuario)
+                .usuario(usuario)
                 .build();
     }
 
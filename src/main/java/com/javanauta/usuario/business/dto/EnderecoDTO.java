@@ -1,5 +1,6 @@
 package com.javanauta.usuario.business.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
 @Getter
@@ -16,5 +17,8 @@ public class EnderecoDTO {
     private String cidade;
     private String estado;
     private String cep;
+    // true enquanto rua, cidade e estado aguardam o preenchimento pelo ViaCep
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean enriquecimentoPendente;
 
 }
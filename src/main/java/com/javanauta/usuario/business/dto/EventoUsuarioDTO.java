@@ -0,0 +1,24 @@
+package com.javanauta.usuario.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EventoUsuarioDTO {
+
+    // Crescente por usuário; os consumidores podem usá-lo para descartar entregas repetidas
+    private Long id;
+    private String tipo;
+    private Long idUsuario;
+    private String email;
+    // UsuarioDTO, EnderecoDTO ou TelefoneDTO alterado, já em JSON (sem o hash da senha)
+    @JsonRawValue
+    private String dados;
+    private OffsetDateTime ocorridoEm;
+}
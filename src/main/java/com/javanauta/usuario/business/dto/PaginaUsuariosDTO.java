@@ -0,0 +1,17 @@
+package com.javanauta.usuario.business.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaginaUsuariosDTO {
+
+    private List<UsuarioDTO> usuarios;
+    // Cursor opaco para a próxima página; null quando não há mais usuários
+    private String proximoCursor;
+}
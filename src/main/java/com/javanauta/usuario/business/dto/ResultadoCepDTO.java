@@ -0,0 +1,15 @@
+package com.javanauta.usuario.business.dto;
+
+import com.javanauta.usuario.infrastructure.clients.ViaCepDTO;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ResultadoCepDTO {
+
+    private ViaCepDTO endereco;
+    private String erro;
+}
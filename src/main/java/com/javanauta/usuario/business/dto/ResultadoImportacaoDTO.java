@@ -0,0 +1,23 @@
+package com.javanauta.usuario.business.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ResultadoImportacaoDTO {
+
+    private long processados;
+    private long importados;
+    private long rejeitados;
+    // Limitada a importacao.maximo-erros; os demais erros são apenas contados em errosOmitidos
+    @Builder.Default
+    private List<ErroImportacaoDTO> erros = new ArrayList<>();
+    private long errosOmitidos;
+    private long duracaoMs;
+}
@@ -3,11 +3,15 @@ package com.javanauta.usuario.controller;
 import com.javanauta.usuario.infrastructure.exceptions.ConflictException;
 import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
 import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
 import com.javanauta.usuario.infrastructure.exceptions.UnauthorizedException;
 import com.javanauta.usuario.infrastructure.exceptions.dto.ErrorResponseDTO;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -55,6 +59,33 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(ServicoIndisponivelException.class)
+    public ResponseEntity<ErrorResponseDTO> handleServicoIndisponivelException(ServicoIndisponivelException ex,
+                                                                               HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        ex.getMessage(),
+                        request.getRequestURI(),
+                        "Service Unavailable"
+                ));
+    }
+
+
+    // Pool de conexões esgotado (espera maior que spring.datasource.hikari.connection-timeout) ou banco fora do ar:
+    // o HikariCP é o ponto de contenção, e a requisição recebe 503 em vez de esperar indefinidamente
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponseDTO> handleBancoIndisponivel(RuntimeException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Banco de dados ocupado, tente novamente em instantes",
+                        request.getRequestURI(),
+                        "Service Unavailable"
+                ));
+    }
+
+
     private ErrorResponseDTO buildError(int status, String mensagem, String path, String error) {
         return ErrorResponseDTO.builder()
                 .timestamp(LocalDateTime.now())
@@ -1,8 +1,13 @@
 package com.javanauta.usuario.controller;
 
+import com.javanauta.usuario.business.ExportacaoUsuarioService;
+import com.javanauta.usuario.business.ImportacaoUsuarioService;
 import com.javanauta.usuario.business.UsuarioService;
 import com.javanauta.usuario.business.ViaCepService;
 import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.PaginaUsuariosDTO;
+import com.javanauta.usuario.business.dto.ResultadoCepDTO;
+import com.javanauta.usuario.business.dto.ResultadoImportacaoDTO;
 import com.javanauta.usuario.business.dto.TelefoneDTO;
 import com.javanauta.usuario.business.dto.UsuarioDTO;
 import com.javanauta.usuario.infrastructure.clients.ViaCepDTO;
@@ -10,13 +15,21 @@ import com.javanauta.usuario.infrastructure.security.JwtUtil;
 import com.javanauta.usuario.infrastructure.security.SecurityConfig;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/usuario")
 @RequiredArgsConstructor
@@ -26,12 +39,29 @@ public class UsuarioController {
 
     private final UsuarioService usuarioService;
     private final ViaCepService viaCepService;
+    private final ImportacaoUsuarioService importacaoUsuarioService;
+    private final ExportacaoUsuarioService exportacaoUsuarioService;
 
     @PostMapping
     public ResponseEntity<UsuarioDTO> salvaUsuario(@RequestBody UsuarioDTO usuarioDTO) {
         return ResponseEntity.ok(usuarioService.salvaUsuario(usuarioDTO));
     }
 
+    //Corpo em NDJSON (um UsuarioDTO por linha) ou CSV, lido em streaming; devolve o relatório por registro
+    @PostMapping(value = "/importacao", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ResultadoImportacaoDTO> importaUsuarios(InputStream corpo,
+                                                                  @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo) {
+        return ResponseEntity.ok(importacaoUsuarioService.importaUsuarios(corpo, MediaType.parseMediaType(tipo)));
+    }
+
+    //Todos os usuários em NDJSON, escritos direto na resposta à medida que são lidos do banco
+    @GetMapping(value = "/exportacao", produces = "application/x-ndjson")
+    public void exportaUsuarios(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        exportacaoUsuarioService.exportaUsuarios(response.getOutputStream());
+    }
+
     @PostMapping("/login")
     public ResponseEntity<String> login(@RequestBody UsuarioDTO usuarioDTO) {
         return ResponseEntity.ok(usuarioService.autenticarUsuario(usuarioDTO));
@@ -42,25 +72,41 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarioService.buscarUsuarioPorEmail(email));
     }
 
+    @GetMapping("/lista")
+    public ResponseEntity<PaginaUsuariosDTO> listaUsuarios(@RequestParam(value = "ordem", defaultValue = "id") String ordem,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "tamanho", defaultValue = "50") int tamanho,
+                                                           @RequestParam(value = "nome", required = false) String nome,
+                                                           @RequestParam(value = "estado", required = false) String estado,
+                                                           @RequestParam(value = "cidade", required = false) String cidade) {
+        return ResponseEntity.ok(usuarioService.listaUsuarios(ordem, cursor, tamanho, nome, estado, cidade));
+    }
+
+    @GetMapping("/busca")
+    public ResponseEntity<List<UsuarioDTO>> buscaUsuarios(@RequestParam("termo") String termo,
+                                                          @RequestParam(value = "limite", defaultValue = "20") int limite) {
+        return ResponseEntity.ok(usuarioService.buscaUsuariosPorSemelhanca(termo, limite));
+    }
+
     @DeleteMapping("/{email}")
     public ResponseEntity<Void> deletaUsuarioPorEmail(@PathVariable String email) {
         usuarioService.deletaUsuarioPorEmail(email);
         return ResponseEntity.ok().build();
     }
 
-    @PutMapping
+    @RequestMapping(method = {RequestMethod.PUT, RequestMethod.PATCH})
     public ResponseEntity<UsuarioDTO> atualizDadoUsuario(@RequestBody UsuarioDTO dto,
                                                          @RequestHeader("Authorization") String token) {
         return ResponseEntity.ok(usuarioService.atualizaDadosUsuario(token, dto));
     }
 
-    @PutMapping("/endereco")
+    @RequestMapping(value = "/endereco", method = {RequestMethod.PUT, RequestMethod.PATCH})
     public ResponseEntity<EnderecoDTO> atualizaEndereco(@RequestBody EnderecoDTO dto,
                                                         @RequestParam("id") Long id){
         return ResponseEntity.ok(usuarioService.atualizaEndereco(id, dto));
     }
 
-    @PutMapping("/telefone")
+    @RequestMapping(value = "/telefone", method = {RequestMethod.PUT, RequestMethod.PATCH})
     public ResponseEntity<TelefoneDTO> atualizaTelefone(@RequestBody TelefoneDTO dto,
                                                         @RequestParam("id") Long id){
         return ResponseEntity.ok(usuarioService.atualizaTelefone(id, dto));
@@ -68,8 +114,9 @@ public class UsuarioController {
 
     @PostMapping("/endereco")
     public ResponseEntity<EnderecoDTO> cadastaEndereco(@RequestBody EnderecoDTO dto,
-                                                        @RequestHeader("Authorization") String token){
-        return ResponseEntity.ok(usuarioService.cadastraEndereco(token, dto));
+                                                        @RequestHeader("Authorization") String token,
+                                                        @RequestParam(value = "enriquecer", defaultValue = "false") boolean enriquecer){
+        return ResponseEntity.ok(usuarioService.cadastraEndereco(token, dto, enriquecer));
     }
 
     @PostMapping("/telefone")
@@ -83,4 +130,9 @@ public class UsuarioController {
         return ResponseEntity.ok(viaCepService.buscarDadosEndereco(cep));
     }
 
+    @PostMapping("/endereco/lote")
+    public ResponseEntity<Map<String, ResultadoCepDTO>> buscarDadosCeps(@RequestBody List<String> ceps){
+        return ResponseEntity.ok(viaCepService.buscarDadosEnderecos(ceps));
+    }
+
 }
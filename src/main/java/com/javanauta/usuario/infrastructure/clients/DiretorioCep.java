@@ -0,0 +1,157 @@
+package com.javanauta.usuario.infrastructure.clients;
+
+import com.javanauta.usuario.business.ViaCepProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Diretório local de CEPs carregado de um dump CSV, consultado antes do ViaCep.
+// Os CEPs ficam em um int[] ordenado (busca binária) apontando para uma tabela de textos mapeada em memória.
+//
+// Formato do CSV (UTF-8, separado por ';', cabeçalho opcional):
+// cep;logradouro;complemento;bairro;localidade;uf;ibge;ddd
+@Slf4j
+@Component
+public class DiretorioCep {
+
+    private static final String SEPARADOR = ";";
+
+    private final String arquivo;
+
+    private int[] ceps = new int[0];
+    private int[] posicoes = new int[0];
+    private int[] tamanhos = new int[0];
+    private MappedByteBuffer textos;
+
+    public DiretorioCep(ViaCepProperties properties) {
+        this.arquivo = properties.getDiretorio().getArquivo();
+    }
+
+    @PostConstruct
+    public void carregar() {
+        if (!StringUtils.hasText(arquivo)) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        try {
+            carregar(Path.of(arquivo));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao carregar o diretório de CEPs " + arquivo, e);
+        }
+        log.info("Diretório de CEPs carregado: {} CEPs em {} ms", ceps.length, System.currentTimeMillis() - inicio);
+    }
+
+    // Devolve o endereço do CEP já normalizado (8 dígitos) ou null se ele não estiver no diretório
+    public ViaCepDTO buscar(String cep) {
+        if (textos == null) {
+            return null;
+        }
+        int indice = Arrays.binarySearch(ceps, Integer.parseInt(cep));
+        if (indice < 0) {
+            return null;
+        }
+        byte[] registro = new byte[tamanhos[indice]];
+        textos.get(posicoes[indice], registro);
+        return paraViaCepDTO(ceps[indice], new String(registro, StandardCharsets.UTF_8).split(SEPARADOR, -1));
+    }
+
+    private void carregar(Path csv) throws IOException {
+        Path tabela = Files.createTempFile("diretorio-cep-", ".tbl");
+        tabela.toFile().deleteOnExit();
+
+        int quantidade = 0;
+        int[] chaves = new int[1024];
+        int[] inicios = new int[1024];
+        int[] comprimentos = new int[1024];
+        int posicao = 0;
+
+        // Grava os registros na tabela de textos na ordem do arquivo, guardando só chave e posição em memória
+        try (BufferedReader leitor = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             OutputStream saida = new BufferedOutputStream(Files.newOutputStream(tabela))) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                int separador = linha.indexOf(';');
+                if (separador < 0) {
+                    continue;
+                }
+                String cep = linha.substring(0, separador).replace("-", "").trim();
+                if (cep.length() != 8 || !cep.chars().allMatch(Character::isDigit)) {
+                    continue; // cabeçalho ou linha inválida
+                }
+                byte[] registro = linha.substring(separador + 1).getBytes(StandardCharsets.UTF_8);
+                if (quantidade == chaves.length) {
+                    chaves = Arrays.copyOf(chaves, quantidade * 2);
+                    inicios = Arrays.copyOf(inicios, quantidade * 2);
+                    comprimentos = Arrays.copyOf(comprimentos, quantidade * 2);
+                }
+                chaves[quantidade] = Integer.parseInt(cep);
+                inicios[quantidade] = posicao;
+                comprimentos[quantidade] = registro.length;
+                quantidade++;
+                saida.write(registro);
+                posicao = Math.addExact(posicao, registro.length);
+            }
+        }
+
+        // Ordena pelo CEP levando junto o índice original (chave nos 32 bits altos, índice nos baixos)
+        long[] ordem = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            ordem[i] = ((long) chaves[i] << 32) | i;
+        }
+        Arrays.sort(ordem);
+
+        int[] cepsOrdenados = new int[quantidade];
+        int[] posicoesOrdenadas = new int[quantidade];
+        int[] tamanhosOrdenados = new int[quantidade];
+        int unicos = 0;
+        for (long item : ordem) {
+            int chave = (int) (item >>> 32);
+            int original = (int) item;
+            if (unicos > 0 && cepsOrdenados[unicos - 1] == chave) {
+                continue; // CEP repetido: mantém a primeira ocorrência
+            }
+            cepsOrdenados[unicos] = chave;
+            posicoesOrdenadas[unicos] = inicios[original];
+            tamanhosOrdenados[unicos] = comprimentos[original];
+            unicos++;
+        }
+
+        try (FileChannel canal = FileChannel.open(tabela, StandardOpenOption.READ)) {
+            this.textos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        this.ceps = Arrays.copyOf(cepsOrdenados, unicos);
+        this.posicoes = Arrays.copyOf(posicoesOrdenadas, unicos);
+        this.tamanhos = Arrays.copyOf(tamanhosOrdenados, unicos);
+    }
+
+    private ViaCepDTO paraViaCepDTO(int cep, String[] campos) {
+        return ViaCepDTO.builder()
+                .cep(String.format("%05d-%03d", cep / 1000, cep % 1000))
+                .logradouro(campo(campos, 0))
+                .complemento(campo(campos, 1))
+                .bairro(campo(campos, 2))
+                .localidade(campo(campos, 3))
+                .uf(campo(campos, 4))
+                .ibge(campo(campos, 5))
+                .ddd(campo(campos, 6))
+                .build();
+    }
+
+    private String campo(String[] campos, int indice) {
+        return indice < campos.length ? campos[indice] : "";
+    }
+}
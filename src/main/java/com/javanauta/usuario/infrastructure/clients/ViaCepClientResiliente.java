@@ -0,0 +1,62 @@
+package com.javanauta.usuario.infrastructure.clients;
+
+import com.javanauta.usuario.business.ViaCepProperties;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Protege as chamadas ao ViaCep com um bulkhead (limite de chamadas simultâneas)
+// e um circuit breaker que falha rápido depois de erros ou lentidão repetidos.
+// Lança BulkheadFullException, CallNotPermittedException ou FeignException quando a chamada não é atendida.
+@Component
+public class ViaCepClientResiliente {
+
+    private static final String NOME = "viacep";
+
+    private final ViaCepClient client;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public ViaCepClientResiliente(ViaCepClient client, ViaCepProperties properties, MeterRegistry meterRegistry) {
+        ViaCepProperties.Resiliencia config = properties.getResiliencia();
+        this.client = client;
+
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxChamadasSimultaneas())
+                .maxWaitDuration(config.getEsperaMaxima())
+                .build());
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getTaxaFalhas())
+                .slowCallRateThreshold(config.getTaxaChamadasLentas())
+                .slowCallDurationThreshold(config.getChamadaLenta())
+                .slidingWindowSize(config.getJanela())
+                .minimumNumberOfCalls(config.getMinimoChamadas())
+                .waitDurationInOpenState(config.getTempoAberto())
+                .permittedNumberOfCallsInHalfOpenState(config.getChamadasMeioAberto())
+                // Bulkhead cheio é saturação local e 4xx é erro do pedido, não falha do ViaCep
+                .ignoreExceptions(BulkheadFullException.class, FeignException.FeignClientException.class)
+                .build());
+        this.bulkhead = bulkheads.bulkhead(NOME);
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NOME);
+
+        // Estado do circuito, chamadas por resultado e vagas do bulkhead ficam disponíveis no actuator
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    }
+
+    public ViaCepDTO buscaDadosEndereco(String cep) {
+        Supplier<ViaCepDTO> chamada = () -> client.buscaDadosEndereco(cep);
+        return CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, chamada)).get();
+    }
+}
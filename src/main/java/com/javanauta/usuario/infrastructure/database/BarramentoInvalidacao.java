@@ -0,0 +1,194 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+
+// Invalidações entre instâncias usando LISTEN/NOTIFY do próprio PostgreSQL.
+// A publicação roda na transação corrente, então as outras instâncias só recebem a mensagem depois do commit.
+// A escuta usa uma conexão própria (fora do pool) em uma thread dedicada; ao conectar ou reconectar,
+// os ouvintes recarregam o estado, já que mensagens enviadas enquanto ninguém escutava se perdem.
+@Slf4j
+@Component
+public class BarramentoInvalidacao implements SmartLifecycle {
+
+    static final String CANAL = "usuario_invalidacao";
+
+    private static final String USUARIO = "usuario";
+    private static final String TOKEN = "token";
+    private static final int ESPERA_NOTIFICACAO_MS = 500;
+    private static final long INTERVALO_VERIFICACAO_MS = 30000;
+    private static final long ESPERA_MAXIMA_RECONEXAO_MS = 30000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    // Resolvidos só na inicialização da escuta, pois os próprios ouvintes publicam por este barramento
+    private final ObjectProvider<OuvinteInvalidacao> ouvintes;
+    private final Counter recebidas;
+    private final Counter reconexoes;
+
+    private volatile boolean executando;
+    private Thread escuta;
+
+    public BarramentoInvalidacao(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                 ObjectProvider<OuvinteInvalidacao> ouvintes, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.ouvintes = ouvintes;
+        this.recebidas = Counter.builder("invalidacao.recebidas")
+                .description("Invalidações recebidas de qualquer instância")
+                .register(meterRegistry);
+        this.reconexoes = Counter.builder("invalidacao.reconexoes")
+                .description("Reconexões da escuta de invalidações")
+                .register(meterRegistry);
+    }
+
+    public void publicarUsuario(String email) {
+        publicar(USUARIO + "|" + email.toLowerCase(Locale.ROOT));
+    }
+
+    public void publicarToken(long idUsuario, int versaoToken) {
+        publicar(TOKEN + "|" + idUsuario + "|" + versaoToken);
+    }
+
+    private void publicar(String mensagem) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CANAL, mensagem);
+    }
+
+    @Override
+    public void start() {
+        executando = true;
+        escuta = new Thread(this::escutar, "invalidacao-escuta");
+        escuta.setDaemon(true);
+        escuta.start();
+    }
+
+    @Override
+    public void stop() {
+        executando = false;
+        if (escuta != null) {
+            escuta.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executando;
+    }
+
+    private void escutar() {
+        long esperaReconexao = 500;
+        boolean primeiraConexao = true;
+        while (executando) {
+            try (Connection conexao = conectar()) {
+                try (Statement statement = conexao.createStatement()) {
+                    statement.execute("listen " + CANAL);
+                }
+                if (!primeiraConexao) {
+                    reconexoes.increment();
+                    log.info("Escuta de invalidações reconectada; recarregando o estado local");
+                }
+                primeiraConexao = false;
+                esperaReconexao = 500;
+                // Cobre as mensagens publicadas antes do LISTEN (inicialização ou queda da conexão)
+                ouvintes.orderedStream().forEach(OuvinteInvalidacao::recuperar);
+                receber(conexao);
+            } catch (SQLException e) {
+                if (!executando) {
+                    break;
+                }
+                log.warn("Escuta de invalidações desconectada ({}); nova tentativa em {} ms",
+                        e.getMessage(), esperaReconexao);
+                if (!dormir(esperaReconexao)) {
+                    break;
+                }
+                esperaReconexao = Math.min(esperaReconexao * 2, ESPERA_MAXIMA_RECONEXAO_MS);
+            } catch (RuntimeException e) {
+                // Falha de um ouvinte ao recarregar (por exemplo, banco indisponível): tenta de novo
+                log.warn("Falha ao recuperar o estado após conectar a escuta de invalidações", e);
+                if (!dormir(esperaReconexao)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void receber(Connection conexao) throws SQLException {
+        PGConnection pgConnection = conexao.unwrap(PGConnection.class);
+        long ultimaVerificacao = System.currentTimeMillis();
+        while (executando) {
+            PGNotification[] notificacoes = pgConnection.getNotifications(ESPERA_NOTIFICACAO_MS);
+            if (notificacoes != null) {
+                for (PGNotification notificacao : notificacoes) {
+                    processar(notificacao.getParameter());
+                }
+            }
+            // Uma conexão derrubada sem aviso (rede, failover) só é percebida ao enviar algo
+            if (System.currentTimeMillis() - ultimaVerificacao > INTERVALO_VERIFICACAO_MS) {
+                try (Statement statement = conexao.createStatement()) {
+                    statement.execute("select 1");
+                }
+                ultimaVerificacao = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void processar(String mensagem) {
+        recebidas.increment();
+        try {
+            int separador = mensagem.indexOf('|');
+            String tipo = mensagem.substring(0, separador);
+            String conteudo = mensagem.substring(separador + 1);
+            if (USUARIO.equals(tipo)) {
+                ouvintes.orderedStream().forEach(ouvinte -> ouvinte.usuarioAlterado(conteudo));
+            } else if (TOKEN.equals(tipo)) {
+                int separadorVersao = conteudo.indexOf('|');
+                long idUsuario = Long.parseLong(conteudo.substring(0, separadorVersao));
+                int versaoToken = Integer.parseInt(conteudo.substring(separadorVersao + 1));
+                ouvintes.orderedStream().forEach(ouvinte -> ouvinte.tokenAlterado(idUsuario, versaoToken));
+            } else {
+                log.warn("Invalidação desconhecida ignorada: {}", mensagem);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalidação inválida ignorada: {}", mensagem, e);
+        }
+    }
+
+    // Conexão direta no primário, fora do pool: fica aberta o tempo todo e não deve ocupar uma vaga do Hikari
+    private Connection conectar() throws SQLException {
+        Properties propriedades = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            propriedades.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            propriedades.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        propriedades.setProperty("tcpKeepAlive", "true");
+        propriedades.setProperty("ApplicationName", "usuario-invalidacao");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), propriedades);
+    }
+
+    private boolean dormir(long milissegundos) {
+        try {
+            Thread.sleep(milissegundos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
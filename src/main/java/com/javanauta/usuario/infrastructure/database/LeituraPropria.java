@@ -0,0 +1,52 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+// Lembra quais usuários fizeram uma escrita há pouco tempo. Enquanto a janela não passa, as transações
+// somente leitura desse usuário são enviadas ao primário, para que ele veja o que acabou de gravar
+// mesmo com a réplica atrasada. Registrado no gerenciador de transações pelo Spring Boot.
+@Component
+@ConditionalOnProperty(name = "replica.url")
+public class LeituraPropria implements TransactionExecutionListener {
+
+    private final Cache<String, Boolean> escritasRecentes;
+
+    public LeituraPropria(ReplicaProperties properties) {
+        this.escritasRecentes = Caffeine.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(properties.getJanelaLeituraPropria())
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            String usuario = usuarioAtual();
+            if (usuario != null) {
+                escritasRecentes.put(usuario, Boolean.TRUE);
+            }
+        }
+    }
+
+    public boolean fixadoNoPrimario() {
+        String usuario = usuarioAtual();
+        return usuario != null && escritasRecentes.getIfPresent(usuario) != null;
+    }
+
+    private String usuarioAtual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,14 @@
+package com.javanauta.usuario.infrastructure.database;
+
+// Estado em memória que precisa acompanhar as escritas feitas por qualquer instância do serviço
+public interface OuvinteInvalidacao {
+
+    default void usuarioAlterado(String email) {
+    }
+
+    default void tokenAlterado(long idUsuario, int versaoToken) {
+    }
+
+    // Mensagens podem ter sido perdidas enquanto a escuta esteve desconectada: descarta ou recarrega tudo
+    void recuperar();
+}
@@ -0,0 +1,30 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+
+    // JDBC da réplica de leitura; sem ela tudo vai para o primário
+    private String url;
+
+    // Credenciais da réplica; quando ausentes, usa as de spring.datasource
+    private String username;
+    private String password;
+
+    // Depois de uma escrita, as leituras do mesmo usuário vão para o primário durante esse tempo,
+    // cobrindo o atraso de replicação (read-your-writes)
+    private Duration janelaLeituraPropria = Duration.ofSeconds(5);
+
+    public boolean replicaConfigurada() {
+        return url != null && !url.isBlank();
+    }
+}
@@ -0,0 +1,80 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Ativo quando replica.url está definida. Transações @Transactional(readOnly = true) usam a réplica;
+// todo o resto (escritas, Flyway, JdbcTemplate fora de transação) continua no primário.
+// O LazyConnectionDataSourceProxy só busca a conexão física no primeiro comando, quando o gerenciador
+// de transações já marcou a conexão como somente leitura, e por isso consegue escolher o pool certo.
+@Configuration
+@ConditionalOnProperty(name = "replica.url")
+public class RoteamentoDataSourceConfig {
+
+    private static final String PRIMARIO = "primario";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARIO);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("replica.hikari")
+    public HikariDataSource dataSourceReplica(ReplicaProperties replica, DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername())
+                .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+                .build();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 LeituraPropria leituraPropria) {
+        RoteamentoLeitura leitura = new RoteamentoLeitura(leituraPropria);
+        leitura.setTargetDataSources(Map.of(PRIMARIO, primario, REPLICA, replica));
+        leitura.setDefaultTargetDataSource(replica);
+        leitura.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primario);
+        proxy.setReadOnlyDataSource(leitura);
+        return proxy;
+    }
+
+    // Leituras vão para a réplica, exceto as do usuário que escreveu dentro da janela de leitura própria
+    private static class RoteamentoLeitura extends AbstractRoutingDataSource {
+
+        private final LeituraPropria leituraPropria;
+
+        RoteamentoLeitura(LeituraPropria leituraPropria) {
+            this.leituraPropria = leituraPropria;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return leituraPropria.fixadoNoPrimario() ? PRIMARIO : REPLICA;
+        }
+    }
+}
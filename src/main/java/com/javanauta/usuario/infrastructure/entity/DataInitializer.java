@@ -19,6 +19,7 @@ public class DataInitializer {
                 admin.setNome("Administrador");
                 admin.setEmail("admin@admin.com");
                 admin.setSenha(passwordEncoder.encode("1234"));
+                // Sem perfil de administrador: a senha é fixa. Promova com update usuario set administrador = true
                 
                 Usuario usuario = new Usuario();
                 usuario.setNome("Usuário Comum");
@@ -2,18 +2,23 @@ package com.javanauta.usuario.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.OffsetDateTime;
 
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
 @Table(name = "endereco")
 @Builder
 public class Endereco {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "endereco_seq")
+    @SequenceGenerator(name = "endereco_seq", sequenceName = "endereco_seq", allocationSize = 50)
     private Long id;
     @Column(name = "rua")
     private String rua;
@@ -27,7 +32,11 @@ public class Endereco {
     private String estado;
     @Column(name = "cep", length = 9)
     private String cep;
-    @Column(name = "usuario_id")
-    private Long usuario_id;
+    // Preenchido enquanto rua, cidade e estado aguardam o enriquecimento pelo ViaCep
+    @Column(name = "enriquecer_em")
+    private OffsetDateTime enriquecerEm;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id")
+    private Usuario usuario;
 
 }
@@ -2,23 +2,27 @@ package com.javanauta.usuario.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
 @Table(name = "telefone")
 @Builder
 public class Telefone {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "telefone_seq")
+    @SequenceGenerator(name = "telefone_seq", sequenceName = "telefone_seq", allocationSize = 50)
     private Long id;
     @Column(name = "numero", length = 10)
     private String numero;
     @Column(name = "ddd", length = 3)
     private String ddd;
-    @Column(name = "usuario_id")
-    private Long usuario_id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id")
+    private Usuario usuario;
 }
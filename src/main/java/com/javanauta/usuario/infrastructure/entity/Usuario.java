@@ -2,7 +2,11 @@ package com.javanauta.usuario.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
+import com.javanauta.usuario.infrastructure.security.SecurityConfig;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -13,12 +17,16 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
+// Usuários com exclusão lógica ficam invisíveis para as consultas JPA até serem purgados
+@SQLRestriction("excluido_em is null")
 @Table(name = "usuario")
 @Builder
 public class Usuario implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
+    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuario_seq", allocationSize = 50)
     private Long id;
     @Column(name = "nome", length = 100)
     private String nome;
@@ -26,17 +34,19 @@ public class Usuario implements UserDetails {
     private String email;
     @Column(name = "senha")
     private String senha;
-    @OneToMany(cascade = CascadeType.ALL)
-    @JoinColumn(name = "usuario_id", referencedColumnName = "id")
+    @Column(name = "versao_token")
+    private Integer versaoToken;
+    @Column(name = "administrador")
+    private boolean administrador;
+    @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL)
     private List<Endereco> enderecos;
-    @OneToMany(cascade = CascadeType.ALL)
-    @JoinColumn(name = "usuario_id", referencedColumnName = "id")
+    @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL)
     private List<Telefone> telefones;
 
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
+        return administrador ? List.of(new SimpleGrantedAuthority(SecurityConfig.AUTORIDADE_ADMIN)) : List.of();
     }
 
     @Override
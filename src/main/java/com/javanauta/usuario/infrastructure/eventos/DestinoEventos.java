@@ -0,0 +1,12 @@
+package com.javanauta.usuario.infrastructure.eventos;
+
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+
+import java.util.List;
+
+// Para onde o relay envia os eventos de usuário, escolhido por outbox.destino.
+// Recebe os eventos na ordem dos ids e deve lançar exceção se o lote não foi aceito, para que seja reenviado.
+public interface DestinoEventos {
+
+    void publicar(List<EventoUsuarioDTO> eventos);
+}
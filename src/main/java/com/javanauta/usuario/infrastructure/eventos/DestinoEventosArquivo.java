@@ -0,0 +1,42 @@
+package com.javanauta.usuario.infrastructure.eventos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.javanauta.usuario.business.OutboxProperties;
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Acrescenta cada lote a um arquivo NDJSON (um evento por linha), para testes locais de consumidores
+@Component
+@ConditionalOnProperty(name = "outbox.destino", havingValue = "arquivo")
+public class DestinoEventosArquivo implements DestinoEventos {
+
+    private final Path arquivo;
+    private final ObjectWriter escritorJson;
+
+    public DestinoEventosArquivo(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.arquivo = Path.of(properties.getArquivo());
+        this.escritorJson = objectMapper.writerFor(EventoUsuarioDTO.class);
+    }
+
+    @Override
+    public void publicar(List<EventoUsuarioDTO> eventos) {
+        try (OutputStream saida = Files.newOutputStream(arquivo, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (EventoUsuarioDTO evento : eventos) {
+                saida.write(escritorJson.writeValueAsBytes(evento));
+                saida.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar eventos em " + arquivo, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.javanauta.usuario.infrastructure.eventos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Destino padrão: escreve cada evento no log, útil em desenvolvimento
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.destino", havingValue = "log", matchIfMissing = true)
+public class DestinoEventosLog implements DestinoEventos {
+
+    private final ObjectMapper objectMapper;
+
+    public DestinoEventosLog(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publicar(List<EventoUsuarioDTO> eventos) {
+        for (EventoUsuarioDTO evento : eventos) {
+            try {
+                log.info("Evento de usuário: {}", objectMapper.writeValueAsString(evento));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Falha ao serializar o evento " + evento.getId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.javanauta.usuario.infrastructure.eventos;
+
+import com.javanauta.usuario.business.OutboxProperties;
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.List;
+
+// Envia cada lote em um POST com um array JSON; qualquer resposta fora de 2xx faz o lote ser reenviado
+@Component
+@ConditionalOnProperty(name = "outbox.destino", havingValue = "webhook")
+public class DestinoEventosWebhook implements DestinoEventos {
+
+    private final RestClient restClient;
+
+    public DestinoEventosWebhook(OutboxProperties properties, RestClient.Builder builder) {
+        if (properties.getWebhookUrl() == null || properties.getWebhookUrl().isBlank()) {
+            throw new IllegalStateException("outbox.webhook-url não configurada");
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(properties.getWebhookTimeout())
+                .build());
+        requestFactory.setReadTimeout(properties.getWebhookTimeout());
+        this.restClient = builder
+                .baseUrl(properties.getWebhookUrl())
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    @Override
+    public void publicar(List<EventoUsuarioDTO> eventos) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(eventos)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,12 @@
+package com.javanauta.usuario.infrastructure.exceptions;
+
+public class ServicoIndisponivelException extends RuntimeException {
+
+    public ServicoIndisponivelException(String mensagem){
+        super(mensagem);
+    }
+
+    public ServicoIndisponivelException(String mensagem, Throwable throwable){
+        super(mensagem, throwable);
+    }
+}
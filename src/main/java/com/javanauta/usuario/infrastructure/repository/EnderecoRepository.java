@@ -3,9 +3,23 @@ package com.javanauta.usuario.infrastructure.repository;
 
 import com.javanauta.usuario.infrastructure.entity.Endereco;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
 
+    // Carrega de uma vez os endereços de vários usuários, usando o índice em usuario_id
+    @Query("select e from Endereco e where e.usuario.id in :idsUsuarios")
+    List<Endereco> buscaPorUsuarios(@Param("idsUsuarios") Collection<Long> idsUsuarios);
+
+    @Modifying
+    @Query("delete from Endereco e where e.usuario.id = :idUsuario")
+    void deletaPorUsuario(@Param("idUsuario") Long idUsuario);
+
 }
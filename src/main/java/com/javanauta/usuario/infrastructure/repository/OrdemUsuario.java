@@ -0,0 +1,7 @@
+package com.javanauta.usuario.infrastructure.repository;
+
+// Colunas usadas na paginação por chave (keyset) da listagem de usuários
+public enum OrdemUsuario {
+    ID,
+    EMAIL
+}
@@ -3,9 +3,23 @@ package com.javanauta.usuario.infrastructure.repository;
 
 import com.javanauta.usuario.infrastructure.entity.Telefone;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TelefoneRepository extends JpaRepository<Telefone, Long> {
 
+    // Carrega de uma vez os telefones de vários usuários, usando o índice em usuario_id
+    @Query("select t from Telefone t where t.usuario.id in :idsUsuarios")
+    List<Telefone> buscaPorUsuarios(@Param("idsUsuarios") Collection<Long> idsUsuarios);
+
+    @Modifying
+    @Query("delete from Telefone t where t.usuario.id = :idUsuario")
+    void deletaPorUsuario(@Param("idUsuario") Long idUsuario);
+
 }
@@ -0,0 +1,18 @@
+package com.javanauta.usuario.infrastructure.repository;
+
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+
+import java.util.List;
+
+// Consultas montadas conforme os filtros informados, implementadas em UsuarioBuscaRepositoryImpl
+public interface UsuarioBuscaRepository {
+
+    // Próximos usuários depois da chave informada (id ou email em minúsculas; null para a primeira página),
+    // sem OFFSET: o banco começa a leitura direto no índice da ordenação
+    List<Usuario> buscaPagina(OrdemUsuario ordem, Object depoisDe, String prefixoNome,
+                              String estado, String cidade, int limite);
+
+    // Usuários cujo nome ou email contém algo parecido com o termo (pg_trgm), do mais ao menos semelhante.
+    // Deve ser chamado dentro de uma transação: o tempo máximo e a semelhança mínima valem só para ela
+    List<Usuario> buscaPorSemelhanca(String termo, double semelhancaMinima, long tempoMaximoMs, int limite);
+}
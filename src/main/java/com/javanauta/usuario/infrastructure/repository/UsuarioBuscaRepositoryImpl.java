@@ -0,0 +1,82 @@
+package com.javanauta.usuario.infrastructure.repository;
+
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class UsuarioBuscaRepositoryImpl implements UsuarioBuscaRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Usuario> buscaPagina(OrdemUsuario ordem, Object depoisDe, String prefixoNome,
+                                     String estado, String cidade, int limite) {
+        // Mesmas expressões dos índices: pk, ux_usuario_email, ix_usuario_nome_prefixo e ix_endereco_*
+        String chave = ordem == OrdemUsuario.EMAIL ? "lower(u.email)" : "u.id";
+        List<String> condicoes = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+
+        if (depoisDe != null) {
+            condicoes.add(chave + " > :depoisDe");
+            parametros.put("depoisDe", depoisDe);
+        }
+        if (prefixoNome != null) {
+            condicoes.add("lower(u.nome) like :prefixoNome escape '\\'");
+            parametros.put("prefixoNome", escapaLike(prefixoNome.toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (estado != null || cidade != null) {
+            StringBuilder existe = new StringBuilder("exists (select 1 from Endereco e where e.usuario = u");
+            if (estado != null) {
+                existe.append(" and e.estado = :estado");
+                parametros.put("estado", estado.toUpperCase(Locale.ROOT));
+            }
+            if (cidade != null) {
+                existe.append(" and lower(e.cidade) = :cidade");
+                parametros.put("cidade", cidade.toLowerCase(Locale.ROOT));
+            }
+            condicoes.add(existe.append(")").toString());
+        }
+
+        StringBuilder jpql = new StringBuilder("select u from Usuario u");
+        if (!condicoes.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", condicoes));
+        }
+        jpql.append(" order by ").append(chave);
+
+        TypedQuery<Usuario> query = entityManager.createQuery(jpql.toString(), Usuario.class);
+        parametros.forEach(query::setParameter);
+        return query.setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Usuario> buscaPorSemelhanca(String termo, double semelhancaMinima, long tempoMaximoMs, int limite) {
+        entityManager.createNativeQuery("select set_config('statement_timeout', :tempoMaximo, true), "
+                        + "set_config('pg_trgm.word_similarity_threshold', :semelhanca, true)")
+                .setParameter("tempoMaximo", tempoMaximoMs + "ms")
+                .setParameter("semelhanca", Double.toString(semelhancaMinima))
+                .getSingleResult();
+
+        // <% usa os índices GIN ix_usuario_nome_trgm e ix_usuario_email_trgm
+        return entityManager.createNativeQuery("""
+                        select u.* from usuario u
+                        where (:termo <% u.nome or :termo <% u.email) and u.excluido_em is null
+                        order by greatest(word_similarity(:termo, u.nome), word_similarity(:termo, u.email)) desc, u.id
+                        limit :limite""", Usuario.class)
+                .setParameter("termo", termo)
+                .setParameter("limite", limite)
+                .getResultList();
+    }
+
+    private String escapaLike(String valor) {
+        return valor.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
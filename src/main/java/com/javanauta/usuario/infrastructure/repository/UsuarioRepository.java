@@ -2,20 +2,74 @@ package com.javanauta.usuario.infrastructure.repository;
 
 
 import com.javanauta.usuario.infrastructure.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, UsuarioBuscaRepository {
 
-    boolean existsByEmail(String email);
+    // As buscas por email usam lower(email) para aproveitar o índice único ux_usuario_email
+    @Query("select u from Usuario u where lower(u.email) = lower(:email)")
+    Optional<Usuario> findByEmail(@Param("email") String email);
 
-    Optional<Usuario> findByEmail(String email);
+    @EntityGraph(attributePaths = "enderecos")
+    @Query("select u from Usuario u where lower(u.email) = lower(:email)")
+    Optional<Usuario> findComEnderecosByEmail(@Param("email") String email);
+
+    // Recebe os emails já em minúsculas e devolve os que já estão cadastrados
+    @Query("select lower(u.email) from Usuario u where lower(u.email) in :emails")
+    List<String> buscaEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    @Query("select u from Usuario u left join fetch u.telefones where u.id = :id")
+    Optional<Usuario> findComTelefonesById(@Param("id") Long id);
+
+    // Carrega o usuário com endereços e telefones em duas consultas (uma por coleção),
+    // sem consultas extras ao percorrer as listas e sem produto cartesiano entre elas
+    @Transactional(readOnly = true)
+    default Optional<Usuario> buscaCompletoPorEmail(String email) {
+        Optional<Usuario> usuario = findComEnderecosByEmail(email);
+        usuario.ifPresent(u -> findComTelefonesById(u.getId()));
+        return usuario;
+    }
+
+    // Percorre todos os usuários por um cursor no servidor, trazendo 500 linhas por vez, sem snapshots para dirty checking.
+    // Precisa ser consumido dentro de uma transação e fechado ao final
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from Usuario u order by u.id")
+    Stream<Usuario> streamTodos();
+
+    @Query("select u.id from Usuario u where lower(u.email) = lower(:email)")
+    Optional<Long> buscaIdPorEmail(@Param("email") String email);
+
+    // Exclusão em uma única instrução, sem carregar a entidade nem as coleções
+    @Modifying
+    @Query("delete from Usuario u where u.id = :id")
+    void deletaPorId(@Param("id") Long id);
+
+    // Exclusão lógica: a linha fica para o PurgadorUsuariosExcluidos
+    @Modifying
+    @Query(value = "update usuario set excluido_em = now() where id = :id", nativeQuery = true)
+    void marcaComoExcluido(@Param("id") Long id);
 
     @Transactional
-    void deleteByEmail(String email);
+    @Modifying
+    @Query("update Usuario u set u.senha = :senha where u.id = :id")
+    void atualizaSenha(@Param("id") Long id, @Param("senha") String senha);
 
 }
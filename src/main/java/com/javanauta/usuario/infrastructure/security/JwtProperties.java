@@ -0,0 +1,32 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    // Chaves HMAC em Base64 indexadas pelo kid (ex.: jwt.chaves.v1=...)
+    private Map<String, String> chaves = new HashMap<>();
+
+    // kid da chave usada para assinar novos tokens; as demais continuam aceitas na validação
+    private String chaveAtiva;
+
+    // Tempo de validade dos tokens emitidos
+    private Duration expiracao = Duration.ofHours(1);
+
+    // Quando verdadeiro, o usuário autenticado é montado apenas com as claims do token, sem consultar o banco
+    private boolean principalStateless = true;
+
+    // Quantidade máxima de tokens já verificados mantidos em memória
+    private long cacheTamanhoMaximo = 10000;
+}
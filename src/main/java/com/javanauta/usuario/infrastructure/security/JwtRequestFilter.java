@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.javanauta.usuario.infrastructure.exceptions.dto.ErrorResponseDTO;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -13,12 +14,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 // Define a classe JwtRequestFilter, que estende OncePerRequestFilter
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -26,11 +29,17 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     // Define propriedades para armazenar instâncias de JwtUtil e UserDetailsService
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final VersaoTokenRegistry versaoTokenRegistry;
+    // Indica se o usuário autenticado deve ser montado só a partir das claims, sem ir ao banco
+    private final boolean principalStateless;
 
     // Construtor que inicializa as propriedades com instâncias fornecidas
-    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                            VersaoTokenRegistry versaoTokenRegistry, boolean principalStateless) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.versaoTokenRegistry = versaoTokenRegistry;
+        this.principalStateless = principalStateless;
     }
 
     // Método chamado uma vez por requisição para processar o filtro
@@ -44,33 +53,64 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
                 // Extrai o token JWT do cabeçalho
                 final String token = authorizationHeader.substring(7);
-                // Extrai o nome de usuário do token JWT
-                final String username = jwtUtil.extrairEmailToken(token);
+                // Verifica assinatura e expiração uma única vez (ou reaproveita o resultado do cache)
+                final Claims claims = jwtUtil.validarToken(token);
+                // Rejeita tokens revogados (usuário excluído ou senha alterada depois da emissão)
+                if (!tokenVigente(claims)) {
+                    responderNaoAutorizado(request, response, "Token revogado", "Token não é mais válido");
+                    return;
+                }
+                // Extrai o nome de usuário das claims já verificadas
+                final String username = claims.getSubject();
 
                 // Se o nome de usuário não for nulo e o usuário não estiver autenticado ainda
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    // Carrega os detalhes do usuário a partir do nome de usuário
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    // Valida o token JWT
-                    if (jwtUtil.validateToken(token, username)) {
-                        // Cria um objeto de autenticação com as informações do usuário
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        // Define a autenticação no contexto de segurança
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                    // Monta os detalhes do usuário a partir do token ou, se configurado, do banco de dados
+                    UserDetails userDetails = carregarUsuario(username, claims);
+                    // Cria um objeto de autenticação com as informações do usuário
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    // Define a autenticação no contexto de segurança
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
             // Continua a cadeia de filtros, permitindo que a requisição prossiga
             chain.doFilter(request, response);
         } catch (ExpiredJwtException e) {
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.setContentType("application/json");
-            response.getWriter().write(buildError(HttpStatus.UNAUTHORIZED.value(),
-                    "Token expirado",
-                    request.getRequestURI(),
-                    e.getMessage()));
+            responderNaoAutorizado(request, response, "Token expirado", e.getMessage());
+        }
+    }
+
+    // Confere a versão do token contra o registro em memória, sem acessar o banco
+    private boolean tokenVigente(Claims claims) {
+        Long idUsuario = claims.get(JwtUtil.CLAIM_ID_USUARIO, Long.class);
+        Integer versaoToken = claims.get(JwtUtil.CLAIM_VERSAO_TOKEN, Integer.class);
+        return idUsuario != null && versaoToken != null
+                && versaoTokenRegistry.tokenValido(idUsuario, versaoToken);
+    }
+
+    private void responderNaoAutorizado(HttpServletRequest request, HttpServletResponse response,
+                                        String mensagem, String erro) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType("application/json");
+        response.getWriter().write(buildError(HttpStatus.UNAUTHORIZED.value(),
+                mensagem,
+                request.getRequestURI(),
+                erro));
+    }
+
+    // As autoridades vão no token, então as claims verificadas bastam para montar o principal.
+    // Retirar a autoridade de alguém só vale para os tokens emitidos depois; incremente versao_token para revogar os atuais
+    private UserDetails carregarUsuario(String username, Claims claims) {
+        if (principalStateless) {
+            List<?> autoridades = claims.get(JwtUtil.CLAIM_AUTORIDADES, List.class);
+            return User.withUsername(username)
+                    .password("")
+                    .authorities(autoridades == null ? new String[0]
+                            : autoridades.stream().map(String::valueOf).toArray(String[]::new))
+                    .build();
         }
+        return userDetailsService.loadUserByUsername(username);
     }
 
     private String buildError(int status, String mensagem, String path, String error){
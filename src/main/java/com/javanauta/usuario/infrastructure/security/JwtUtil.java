@@ -1,63 +1,171 @@
 package com.javanauta.usuario.infrastructure.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtUtil {
 
-    // Chave secreta usada para assinar e verificar tokens JWT
-    private final String secretKey = "c3VhLWNoYXZlLXNlY3JldGEtc3VwZXItc2VndXJhLXF1ZS1kZXZlLXNlci1iZW0tbG9uZ2E=";
+    // Claims com o id do usuário e a versão dos seus tokens no momento da emissão
+    public static final String CLAIM_ID_USUARIO = "uid";
+    public static final String CLAIM_VERSAO_TOKEN = "ver";
+    // Autoridades do usuário na emissão; tokens sem a claim não têm nenhuma
+    public static final String CLAIM_AUTORIDADES = "aut";
 
-    private SecretKey getSecretKey(){
-        byte[] key = Base64.getDecoder().decode(secretKey);
-        return Keys.hmacShaKeyFor(key);
+    // Chave e identificador (kid) usados para assinar novos tokens
+    private final String kidAtivo;
+    private final SecretKey chaveAtiva;
+    private final Duration expiracao;
+
+    // Parser imutável e thread-safe, criado uma única vez; a chave de verificação é escolhida pelo kid do token
+    private final JwtParser parser;
+
+    // Claims já verificadas, indexadas pelo hash SHA-256 do token e válidas até o "exp" do próprio token
+    private final Cache<String, Claims> tokensVerificados;
+
+    public JwtUtil(JwtProperties properties) {
+        Map<String, SecretKey> chaves = new HashMap<>();
+        // Decodifica cada chave uma única vez na inicialização
+        properties.getChaves().forEach((kid, valor) ->
+                chaves.put(kid, Keys.hmacShaKeyFor(Base64.getDecoder().decode(valor))));
+
+        this.kidAtivo = properties.getChaveAtiva();
+        this.chaveAtiva = chaves.get(kidAtivo);
+        if (chaveAtiva == null) {
+            throw new IllegalStateException("Chave JWT ativa não configurada: " + kidAtivo);
+        }
+        this.expiracao = properties.getExpiracao();
+        this.parser = Jwts.parser()
+                .keyLocator(new LocalizadorDeChave(Map.copyOf(chaves), chaveAtiva))
+                .build();
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheTamanhoMaximo())
+                .expireAfter(new ExpiracaoDoToken())
+                .build();
     }
 
-    // Gera um token JWT com o nome de usuário e validade de 1 hora
-    public String generateToken(String username) {
+    // Gera um token JWT com o nome de usuário, o id, a versão de token e as autoridades do usuário e a validade configurada
+    public String generateToken(String username, Long idUsuario, int versaoToken, List<String> autoridades) {
+        Date agora = new Date();
         return Jwts.builder()
+                .header().keyId(kidAtivo).and() // Identifica a chave usada, permitindo a rotação
                 .subject(username) // Define o email de usuário como o assunto do token
-                .issuedAt(new Date()) // Define a data e hora de emissão do token
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60*60)) // Define a data e hora de expiração (1 hora a partir da emissão)
-                .signWith(getSecretKey()) // Converte a chave secreta em bytes e assina o token com ela
+                .claim(CLAIM_ID_USUARIO, idUsuario) // Permite verificar revogações sem consultar o banco
+                .claim(CLAIM_VERSAO_TOKEN, versaoToken)
+                .claim(CLAIM_AUTORIDADES, autoridades) // Permite montar o principal sem consultar o banco
+                .issuedAt(agora) // Define a data e hora de emissão do token
+                .expiration(new Date(agora.getTime() + expiracao.toMillis())) // Define a data e hora de expiração
+                .signWith(chaveAtiva) // Assina o token com a chave ativa
                 .compact(); // Constrói o token JWT
     }
     // Extrai as claims do token JWT (informações adicionais do token)
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSecretKey()) // Define a chave secreta para validar a assinatura do token
-                .build()
-                .parseSignedClaims(token) // Analisa o token JWT e obtém as claims
+        return parser
+                .parseSignedClaims(token) // Analisa o token JWT, valida a assinatura e obtém as claims
                 .getPayload();  // Obtém o payload (corpo) do token, que contém as claims
     }
 
+    // Verifica a assinatura e a expiração do token uma única vez e devolve as claims.
+    // Chamadas repetidas com o mesmo token reaproveitam o resultado do cache até o token expirar.
+    public Claims validarToken(String token) {
+        String chave = digest(token);
+        Claims claims = tokensVerificados.getIfPresent(chave);
+        if (claims == null || expirado(claims)) {
+            // Lança ExpiredJwtException (ou outra JwtException) se o token não for válido
+            claims = extractClaims(token);
+            tokensVerificados.put(chave, claims);
+        }
+        return claims;
+    }
+
     // Extrai o email do usuário do token JWT
     public String extrairEmailToken(String token) {
         // Obtém o assunto (nome de usuário) das claims do token
-        return extractClaims(token).getSubject();
+        return validarToken(token).getSubject();
+    }
+
+    private boolean expirado(Claims claims) {
+        Date expiracao = claims.getExpiration();
+        return expiracao == null || expiracao.before(new Date());
     }
 
-    // Verifica se o token JWT está expirado
-    public boolean isTokenExpired(String token) {
-        // Compara a data de expiração do token com a data atual
-        return extractClaims(token).getExpiration().before(new Date());
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 
-    // Valida o token JWT verificando o nome de usuário e se o token não está expirado
-    public boolean validateToken(String token, String username) {
-        // Extrai o nome de usuário do token
-        final String extractedUsername = extrairEmailToken(token);
-        // Verifica se o nome de usuário do token corresponde ao fornecido e se o token não está expirado
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    // Escolhe a chave de verificação a partir do kid do cabeçalho; tokens sem kid usam a chave ativa
+    private static class LocalizadorDeChave extends LocatorAdapter<Key> {
+
+        private final Map<String, SecretKey> chaves;
+        private final SecretKey chavePadrao;
+
+        LocalizadorDeChave(Map<String, SecretKey> chaves, SecretKey chavePadrao) {
+            this.chaves = chaves;
+            this.chavePadrao = chavePadrao;
+        }
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                return chavePadrao;
+            }
+            SecretKey chave = chaves.get(kid);
+            if (chave == null) {
+                throw new UnsupportedJwtException("Chave de assinatura desconhecida: " + kid);
+            }
+            return chave;
+        }
+    }
+
+    // Mantém cada entrada no cache apenas até o instante de expiração do token
+    private static class ExpiracaoDoToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String chave, Claims claims, long currentTime) {
+            Date expiracao = claims.getExpiration();
+            if (expiracao == null) {
+                return 0;
+            }
+            long restante = expiracao.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(chave, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
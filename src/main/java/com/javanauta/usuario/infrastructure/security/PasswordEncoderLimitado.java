@@ -0,0 +1,174 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Executa o hash e a verificação de senhas em um executor próprio, do tamanho da CPU e com fila limitada.
+// Quando a fila enche, a requisição é rejeitada na hora em vez de ocupar threads do Tomcat esperando.
+@Slf4j
+public class PasswordEncoderLimitado implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long tempoMaximoEsperaMs;
+    private final Timer tempoHash;
+    private final Counter rejeicoes;
+
+    public PasswordEncoderLimitado(PasswordEncoder delegate, SenhaProperties properties, MeterRegistry meterRegistry) {
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getCapacidadeFila()),
+                new CustomizableThreadFactory("senha-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // As tarefas dos lotes entram direto na fila e dependem das threads já iniciadas
+        executor.prestartAllCoreThreads();
+        this.tempoMaximoEsperaMs = properties.getTempoMaximoEspera().toMillis();
+
+        Gauge.builder("senha.fila", executor, e -> e.getQueue().size())
+                .description("Operações de senha aguardando uma thread livre")
+                .register(meterRegistry);
+        Gauge.builder("senha.ativas", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operações de senha em execução")
+                .register(meterRegistry);
+        this.tempoHash = Timer.builder("senha.hash")
+                .description("Tempo de cada hash ou verificação de senha")
+                .register(meterRegistry);
+        this.rejeicoes = Counter.builder("senha.rejeicoes")
+                .description("Operações de senha rejeitadas por fila cheia ou tempo esgotado")
+                .register(meterRegistry);
+
+        calibrar(properties.getCusto());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executar(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // Gera os hashes de várias senhas usando todas as threads, mas com no máximo uma tarefa por thread
+    // em andamento: logins e cadastros entram na fila entre elas em vez de esperar o lote inteiro
+    public List<String> encodeTodos(List<? extends CharSequence> senhas) {
+        String[] hashes = new String[senhas.size()];
+        Semaphore vagas = new Semaphore(executor.getCorePoolSize());
+        List<Future<?>> futuros = new ArrayList<>(senhas.size());
+        try {
+            for (int i = 0; i < senhas.size(); i++) {
+                int indice = i;
+                CharSequence senha = senhas.get(i);
+                vagas.acquire();
+                futuros.add(submeterAguardandoVaga(() -> {
+                    try {
+                        hashes[indice] = tempoHash.recordCallable(() -> delegate.encode(senha));
+                    } finally {
+                        vagas.release();
+                    }
+                    return null;
+                }, vagas));
+            }
+            for (Future<?> futuro : futuros) {
+                futuro.get();
+            }
+        } catch (InterruptedException e) {
+            futuros.forEach(futuro -> futuro.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServicoIndisponivelException("Processamento das senhas interrompido", e);
+        } catch (ExecutionException e) {
+            futuros.forEach(futuro -> futuro.cancel(true));
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return Arrays.asList(hashes);
+    }
+
+    // Lotes não disputam a fila com as requisições: com a fila cheia, ficam bloqueados no offer até abrir uma vaga.
+    // As requisições continuam usando submit e são rejeitadas na hora quando não há vaga
+    private Future<?> submeterAguardandoVaga(Callable<Void> tarefa, Semaphore vagas) throws InterruptedException {
+        FutureTask<Void> futuro = new FutureTask<>(tarefa);
+        while (!executor.isShutdown()) {
+            if (executor.getQueue().offer(futuro, tempoMaximoEsperaMs, TimeUnit.MILLISECONDS)) {
+                // Encerrado durante a espera: as threads podem já ter saído e a tarefa ficaria parada na fila
+                if (executor.isShutdown() && executor.remove(futuro)) {
+                    break;
+                }
+                return futuro;
+            }
+        }
+        vagas.release();
+        throw new ServicoIndisponivelException("Servidor encerrando, tente novamente");
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> tempoHash.recordCallable(tarefa));
+        } catch (RejectedExecutionException e) {
+            rejeicoes.increment();
+            throw new ServicoIndisponivelException("Servidor ocupado, tente novamente em instantes", e);
+        }
+
+        try {
+            return futuro.get(tempoMaximoEsperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rejeicoes.increment();
+            throw new ServicoIndisponivelException("Tempo esgotado ao processar a senha, tente novamente", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoIndisponivelException("Processamento da senha interrompido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Mede um hash na inicialização para facilitar a escolha do custo adequado à máquina
+    private void calibrar(int custo) {
+        long inicio = System.nanoTime();
+        delegate.encode("calibracao");
+        log.info("BCrypt com custo {} leva {} ms por hash em {} threads", custo,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), executor.getCorePoolSize());
+    }
+}
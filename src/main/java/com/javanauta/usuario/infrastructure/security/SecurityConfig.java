@@ -1,5 +1,6 @@
 package com.javanauta.usuario.infrastructure.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,29 +27,44 @@ public class SecurityConfig {
 
     public static final String SECURITY_SCHEME = "bearerAuth";
 
-    // Instâncias de JwtUtil e UserDetailsService injetadas pelo Spring
+    // Autoridade dos administradores, exigida pelas operações que leem ou gravam usuários em massa
+    public static final String AUTORIDADE_ADMIN = "ADMIN";
+
+    // Instâncias de JwtUtil, UserDetailsService, VersaoTokenRegistry e JwtProperties injetadas pelo Spring
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final VersaoTokenRegistry versaoTokenRegistry;
+    private final JwtProperties jwtProperties;
 
-    // Construtor para injeção de dependências de JwtUtil e UserDetailsService
+    // Construtor para injeção de dependências de JwtUtil, UserDetailsService, VersaoTokenRegistry e JwtProperties
     @Autowired
-    public SecurityConfig(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public SecurityConfig(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                          VersaoTokenRegistry versaoTokenRegistry, JwtProperties jwtProperties) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.versaoTokenRegistry = versaoTokenRegistry;
+        this.jwtProperties = jwtProperties;
     }
 
     // Configuração do filtro de segurança
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        JwtRequestFilter jwtRequestFilter = new JwtRequestFilter(jwtUtil, userDetailsService);
+        JwtRequestFilter jwtRequestFilter = new JwtRequestFilter(jwtUtil, userDetailsService,
+                versaoTokenRegistry, jwtProperties.isPrincipalStateless());
 
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers(HttpMethod.POST, "/usuario").permitAll()
                         .requestMatchers(HttpMethod.POST, "/usuario/login").permitAll()
                         .requestMatchers(HttpMethod.GET, "/usuario/endereco/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/usuario/endereco/lote").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/usuario/importacao").hasAuthority(AUTORIDADE_ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/usuario/exportacao").hasAuthority(AUTORIDADE_ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/usuario/lista").hasAuthority(AUTORIDADE_ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/usuario/busca").hasAuthority(AUTORIDADE_ADMIN)
                         .requestMatchers("/usuario/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -60,10 +76,12 @@ public class SecurityConfig {
         return http.build();
     }
 
-    // Configura o PasswordEncoder para criptografar senhas usando BCrypt
+    // Configura o PasswordEncoder para criptografar senhas usando BCrypt com o custo configurado,
+    // executando o trabalho fora das threads de requisição e com fila limitada
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // Retorna uma instância de BCryptPasswordEncoder
+    public PasswordEncoder passwordEncoder(SenhaProperties senhaProperties, MeterRegistry meterRegistry) {
+        return new PasswordEncoderLimitado(new BCryptPasswordEncoder(senhaProperties.getCusto()),
+                senhaProperties, meterRegistry);
     }
 
     // Configura o AuthenticationManager usando AuthenticationConfiguration
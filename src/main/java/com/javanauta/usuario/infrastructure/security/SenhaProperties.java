@@ -0,0 +1,27 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "senha")
+public class SenhaProperties {
+
+    // Fator de custo do BCrypt; hashes antigos com custo menor são refeitos no próximo login
+    private int custo = 10;
+
+    // Threads dedicadas ao BCrypt; 0 usa a quantidade de processadores disponíveis
+    private int threads = 0;
+
+    // Quantidade máxima de operações aguardando uma thread livre antes de rejeitar com 503
+    private int capacidadeFila = 64;
+
+    // Tempo máximo que a requisição espera pelo resultado do hash
+    private Duration tempoMaximoEspera = Duration.ofSeconds(5);
+}
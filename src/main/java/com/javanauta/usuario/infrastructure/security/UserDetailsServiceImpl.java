@@ -1,35 +1,57 @@
 package com.javanauta.usuario.infrastructure.security;
 
 
+import com.javanauta.usuario.infrastructure.database.ReplicaProperties;
 import com.javanauta.usuario.infrastructure.entity.Usuario;
 import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     // Repositório para acessar dados de usuário no banco de dados
 
     private final UsuarioRepository usuarioRepository;
+    // Transação somente leitura: com réplica configurada, a busca do login vai para ela
+    private final TransactionTemplate leitura;
+    private final boolean replicaConfigurada;
 
-    public UserDetailsServiceImpl(UsuarioRepository usuarioRepository) {
+    public UserDetailsServiceImpl(UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager,
+                                  ReplicaProperties replicaProperties) {
         this.usuarioRepository = usuarioRepository;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.replicaConfigurada = replicaProperties.replicaConfigurada();
     }
 
     // Implementação do método para carregar detalhes do usuário pelo e-mail
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // Busca o usuário no banco de dados pelo e-mail
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + email));
-
-        // Cria e retorna um objeto UserDetails com base no usuário encontrado
-        return org.springframework.security.core.userdetails.User
-                .withUsername(usuario.getEmail()) // Define o nome de usuário como o e-mail
-                .password(usuario.getSenha()) // Define a senha do usuário
-                .build(); // Constrói o objeto UserDetails
+        // Busca o usuário no banco de dados pelo e-mail e o devolve como UserDetails,
+        // mantendo o id e a versão de token disponíveis para a emissão do JWT
+        Optional<Usuario> usuario = leitura.execute(status -> usuarioRepository.findByEmail(email));
+        // Um cadastro recém-feito pode ainda não ter chegado à réplica: confirma no primário antes de recusar
+        if (usuario.isEmpty() && replicaConfigurada) {
+            usuario = usuarioRepository.findByEmail(email);
+        }
+        return usuario.orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + email));
+    }
+
+    // Chamado pelo Spring Security após um login bem-sucedido quando o hash foi gerado com custo menor
+    // que o configurado; grava o novo hash da mesma senha
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Usuario usuario = (Usuario) user;
+        usuarioRepository.atualizaSenha(usuario.getId(), newPassword);
+        usuario.setSenha(newPassword);
+        return usuario;
     }
 }
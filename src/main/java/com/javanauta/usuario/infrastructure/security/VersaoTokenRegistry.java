@@ -0,0 +1,214 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.javanauta.usuario.infrastructure.database.BarramentoInvalidacao;
+import com.javanauta.usuario.infrastructure.database.OuvinteInvalidacao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.StampedLock;
+
+// Mantém em memória a versão atual dos tokens de cada usuário.
+// Um token só é aceito se a versão gravada nele for maior ou igual à versão atual do usuário;
+// trocar a senha incrementa a versão e excluir o usuário a leva para REVOGADO.
+// Usuários sem registro têm versão zero, então só os que já trocaram de senha ou foram excluídos ocupam memória.
+@Slf4j
+@Component
+public class VersaoTokenRegistry implements SmartInitializingSingleton, OuvinteInvalidacao {
+
+    public static final int REVOGADO = Integer.MAX_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+    // Exclusões mais antigas que a validade do token não precisam mais ser lembradas
+    private final Duration validadeToken;
+
+    // Escritas são raras (troca de senha, exclusão); leituras usam leitura otimista sem bloqueio
+    private final StampedLock lock = new StampedLock();
+
+    // Versões diferentes de zero, em tabela de endereçamento aberto com chaves e valores primitivos
+    private TabelaVersoes versoes = new TabelaVersoes(16);
+
+    // Replica as mudanças de versão para as demais instâncias
+    private final BarramentoInvalidacao barramento;
+
+    public VersaoTokenRegistry(JdbcTemplate jdbcTemplate, JwtProperties jwtProperties,
+                               BarramentoInvalidacao barramento) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validadeToken = jwtProperties.getExpiracao();
+        this.barramento = barramento;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recarregar();
+    }
+
+    // Reconstrói o estado a partir do banco de dados
+    public void recarregar() {
+        long inicio = System.currentTimeMillis();
+        TabelaVersoes novasVersoes = new TabelaVersoes(16);
+        Timestamp limite = Timestamp.from(Instant.now().minus(validadeToken));
+
+        jdbcTemplate.update("delete from token_revogado where revogado_em < ?", limite);
+        jdbcTemplate.query("select id, versao_token from usuario where versao_token > 0",
+                rs -> { novasVersoes.registrar(rs.getLong(1), rs.getInt(2)); });
+        jdbcTemplate.query("select usuario_id from token_revogado",
+                rs -> { novasVersoes.registrar(rs.getLong(1), REVOGADO); });
+
+        long stamp = lock.writeLock();
+        try {
+            versoes = novasVersoes;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Versões de token carregadas: {} usuários em {} ms",
+                novasVersoes.tamanho, System.currentTimeMillis() - inicio);
+    }
+
+    // Consulta em O(1) e sem alocação se um token com a versão informada ainda é válido
+    public boolean tokenValido(long idUsuario, int versaoToken) {
+        long stamp = lock.tryOptimisticRead();
+        int atual = versaoAtual(idUsuario);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                atual = versaoAtual(idUsuario);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return versaoToken >= atual;
+    }
+
+    // Registra uma nova versão (nunca retrocede) e a publica para as outras instâncias.
+    // Dentro de uma transação a versão só vale aqui depois do commit: com rollback,
+    // a instância ficaria com uma versão que o banco nunca gravou e recusaria os tokens novos
+    public void atualizar(long idUsuario, int versaoToken) {
+        barramento.publicarToken(idUsuario, versaoToken);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(idUsuario, versaoToken);
+                }
+            });
+        } else {
+            aplicar(idUsuario, versaoToken);
+        }
+    }
+
+    @Override
+    public void tokenAlterado(long idUsuario, int versaoToken) {
+        aplicar(idUsuario, versaoToken);
+    }
+
+    @Override
+    public void recuperar() {
+        recarregar();
+    }
+
+    private void aplicar(long idUsuario, int versaoToken) {
+        long stamp = lock.writeLock();
+        try {
+            versoes.registrar(idUsuario, versaoToken);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Invalida todos os tokens do usuário excluído. Grava a exclusão na transação corrente,
+    // para que ela sobreviva a reinícios enquanto ainda houver tokens válidos emitidos para ele
+    public void revogar(long idUsuario) {
+        jdbcTemplate.update("insert into token_revogado (usuario_id) values (?) on conflict do nothing", idUsuario);
+        atualizar(idUsuario, REVOGADO);
+    }
+
+    private int versaoAtual(long idUsuario) {
+        if (idUsuario <= 0) {
+            return REVOGADO;
+        }
+        return Math.max(versoes.buscar(idUsuario), 0);
+    }
+
+    // Mapa long -> int com chaves e valores intercalados em um único long[], evitando objetos por entrada
+    private static final class TabelaVersoes {
+
+        private static final long VAZIO = 0L;
+
+        private long[] dados;
+        private int tamanho;
+
+        TabelaVersoes(int capacidade) {
+            this.dados = new long[capacidade * 2];
+        }
+
+        // Devolve a versão registrada ou -1 se o id não estiver na tabela
+        int buscar(long id) {
+            long[] d = dados;
+            int capacidade = d.length >>> 1;
+            int mascara = capacidade - 1;
+            int i = indice(id, mascara);
+            for (int n = 0; n < capacidade; n++) {
+                long chave = d[i << 1];
+                if (chave == id) {
+                    return (int) d[(i << 1) + 1];
+                }
+                if (chave == VAZIO) {
+                    return -1;
+                }
+                i = (i + 1) & mascara;
+            }
+            return -1;
+        }
+
+        void registrar(long id, int versao) {
+            if ((tamanho + 1) * 2 > dados.length >>> 1) {
+                redimensionar();
+            }
+            inserir(dados, id, versao);
+        }
+
+        private boolean inserir(long[] d, long id, int versao) {
+            int mascara = (d.length >>> 1) - 1;
+            int i = indice(id, mascara);
+            while (true) {
+                long chave = d[i << 1];
+                if (chave == id) {
+                    d[(i << 1) + 1] = Math.max(d[(i << 1) + 1], versao);
+                    return false;
+                }
+                if (chave == VAZIO) {
+                    // Grava o valor antes da chave para que leitores nunca vejam a chave sem o valor
+                    d[(i << 1) + 1] = versao;
+                    d[i << 1] = id;
+                    if (d == dados) {
+                        tamanho++;
+                    }
+                    return true;
+                }
+                i = (i + 1) & mascara;
+            }
+        }
+
+        private void redimensionar() {
+            long[] antigo = dados;
+            long[] novo = new long[antigo.length * 2];
+            for (int i = 0; i < antigo.length; i += 2) {
+                if (antigo[i] != VAZIO) {
+                    inserir(novo, antigo[i], (int) antigo[i + 1]);
+                }
+            }
+            dados = novo;
+        }
+
+        private static int indice(long id, int mascara) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mascara;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Reserva do lote em publicação. O relay marca o lote e confirma antes de publicar fora da transação;
+-- enquanto houver uma reserva válida nenhum outro lote é reservado, o que mantém a ordem de entrega
+alter table outbox_usuario add column if not exists reservado_ate timestamptz;
+
+create index if not exists ix_outbox_usuario_reservado on outbox_usuario (reservado_ate) where reservado_ate is not null;
@@ -0,0 +1,3 @@
+-- Perfil de administrador, exigido pelas operações em massa (importação, exportação, listagem e busca).
+-- Nenhum usuário existente é promovido aqui: conceda com update usuario set administrador = true where id = ...
+alter table usuario add column if not exists administrador boolean not null default false;
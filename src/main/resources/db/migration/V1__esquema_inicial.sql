@@ -0,0 +1,30 @@
+-- Esquema que antes era gerado pelo ddl-auto=update.
+-- Idempotente para que bancos já existentes possam adotar as migrações sem recriar nada.
+
+create table if not exists usuario (
+    id           bigint generated by default as identity primary key,
+    nome         varchar(100),
+    email        varchar(100),
+    senha        varchar(255),
+    versao_token integer
+);
+
+alter table usuario add column if not exists versao_token integer;
+
+create table if not exists endereco (
+    id          bigint generated by default as identity primary key,
+    rua         varchar(255),
+    numero      bigint,
+    complemento varchar(10),
+    cidade      varchar(150),
+    estado      varchar(2),
+    cep         varchar(9),
+    usuario_id  bigint references usuario (id)
+);
+
+create table if not exists telefone (
+    id         bigint generated by default as identity primary key,
+    numero     varchar(10),
+    ddd        varchar(3),
+    usuario_id bigint references usuario (id)
+);
@@ -0,0 +1,7 @@
+-- Email único sem diferenciar maiúsculas de minúsculas; também atende as buscas por lower(email).
+-- Falha se já existirem emails duplicados, que precisam ser resolvidos antes da migração.
+create unique index if not exists ux_usuario_email on usuario (lower(email));
+
+-- Chaves estrangeiras usadas para carregar os endereços e telefones de um usuário
+create index if not exists ix_endereco_usuario_id on endereco (usuario_id);
+create index if not exists ix_telefone_usuario_id on telefone (usuario_id);
@@ -0,0 +1,21 @@
+-- Ids gerados por sequências com incremento 50: o Hibernate reserva um bloco de ids por chamada
+-- e consegue agrupar os inserts em lote, o que não é possível com colunas identity.
+create sequence if not exists usuario_seq increment by 50;
+create sequence if not exists endereco_seq increment by 50;
+create sequence if not exists telefone_seq increment by 50;
+
+-- Continua a numeração a partir dos ids já existentes
+select setval('usuario_seq', greatest((select coalesce(max(id), 0) from usuario), 1));
+select setval('endereco_seq', greatest((select coalesce(max(id), 0) from endereco), 1));
+select setval('telefone_seq', greatest((select coalesce(max(id), 0) from telefone), 1));
+
+alter table usuario alter column id drop identity if exists;
+alter table endereco alter column id drop identity if exists;
+alter table telefone alter column id drop identity if exists;
+
+-- Usuários excluídos cujos tokens ainda podem estar em circulação. Com ids reservados em blocos
+-- por várias instâncias, um id ausente não indica mais exclusão, então ela é registrada aqui.
+create table if not exists token_revogado (
+    usuario_id  bigint primary key,
+    revogado_em timestamptz not null default now()
+);
@@ -0,0 +1,9 @@
+-- Índices da listagem de usuários (GET /usuario/lista). Criados com concurrently para não bloquear
+-- escritas em tabelas grandes; o Flyway executa esta migração fora de transação.
+
+-- Filtro por prefixo do nome: lower(nome) like 'abc%'
+create index concurrently if not exists ix_usuario_nome_prefixo on usuario (lower(nome) text_pattern_ops);
+
+-- Filtros por estado e cidade do endereço, já com o usuario_id para o exists não ler a tabela
+create index concurrently if not exists ix_endereco_estado_cidade on endereco (estado, lower(cidade), usuario_id);
+create index concurrently if not exists ix_endereco_cidade on endereco (lower(cidade), usuario_id);
@@ -0,0 +1,4 @@
+-- Trigramas para a busca por nome ou email parecidos (GET /usuario/busca). Criar a extensão exige permissão;
+-- em bancos gerenciados ela costuma estar na lista de extensões permitidas.
+-- Fica separada dos índices porque create index concurrently não pode rodar na mesma transação.
+create extension if not exists pg_trgm;
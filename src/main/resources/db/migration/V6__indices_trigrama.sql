@@ -0,0 +1,3 @@
+-- Índices GIN de trigramas usados pelos operadores % e <% da busca por semelhança
+create index concurrently if not exists ix_usuario_nome_trgm on usuario using gin (nome gin_trgm_ops);
+create index concurrently if not exists ix_usuario_email_trgm on usuario using gin (email gin_trgm_ops);
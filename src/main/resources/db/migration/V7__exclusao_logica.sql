@@ -0,0 +1,9 @@
+-- Exclusão lógica opcional (exclusao.logica=true): o usuário fica marcado até o purgador removê-lo
+alter table usuario add column if not exists excluido_em timestamptz;
+
+-- O email de um usuário excluído pode ser cadastrado de novo antes da purga
+drop index if exists ux_usuario_email;
+create unique index ux_usuario_email on usuario (lower(email)) where excluido_em is null;
+
+-- Usuários aguardando a purga
+create index if not exists ix_usuario_aguardando_purga on usuario (id) where excluido_em is not null;
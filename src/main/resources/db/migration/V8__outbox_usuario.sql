@@ -0,0 +1,10 @@
+-- Eventos de alteração de usuários gravados na mesma transação da alteração e publicados depois pelo relay.
+-- A ordem do id é a ordem de entrega; as linhas são removidas assim que publicadas
+create table if not exists outbox_usuario (
+    id         bigserial primary key,
+    usuario_id bigint      not null,
+    tipo       varchar(40) not null,
+    email      varchar(100),
+    dados      jsonb,
+    criado_em  timestamptz not null default now()
+);
@@ -0,0 +1,6 @@
+-- Endereços aguardando o preenchimento de rua, cidade e estado pelo ViaCep (POST /usuario/endereco?enriquecer=true).
+-- enriquecer_em é quando o endereço pode ser processado; nulo quando não há nada pendente
+alter table endereco add column if not exists enriquecer_em timestamptz;
+alter table endereco add column if not exists tentativas_enriquecimento integer not null default 0;
+
+create index if not exists ix_endereco_enriquecimento_pendente on endereco (enriquecer_em) where enriquecer_em is not null;
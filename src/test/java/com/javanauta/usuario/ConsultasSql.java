@@ -0,0 +1,77 @@
+package com.javanauta.usuario;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Registra os comandos SQL executados pela thread corrente enquanto uma captura está ativa.
+// Cada execução conta uma vez, inclusive um executeBatch com várias linhas (uma ida ao banco).
+public class ConsultasSql implements QueryExecutionListener {
+
+    private static final ThreadLocal<List<String>> CAPTURA = new ThreadLocal<>();
+
+    public static List<String> capturar(Acao acao) throws Exception {
+        List<String> comandos = new ArrayList<>();
+        CAPTURA.set(comandos);
+        try {
+            acao.executar();
+        } finally {
+            CAPTURA.remove();
+        }
+        return comandos;
+    }
+
+    // Quantidade de comandos que começam com o prefixo (sem diferenciar maiúsculas), ex.: "update usuario"
+    public static long contar(List<String> comandos, String prefixo) {
+        String procurado = prefixo.toLowerCase(Locale.ROOT);
+        return comandos.stream().filter(comando -> comando.startsWith(procurado)).count();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        List<String> comandos = CAPTURA.get();
+        if (comandos != null) {
+            queryInfoList.forEach(consulta ->
+                    comandos.add(consulta.getQuery().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Acao {
+        void executar() throws Exception;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Configuracao {
+
+        // Envolve o DataSource principal; Flyway, JPA e JdbcTemplate passam todos pelo proxy
+        @Bean
+        static BeanPostProcessor proxyConsultasSql() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nome) {
+                    if (bean instanceof DataSource dataSource && "dataSource".equals(nome)) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name(nome)
+                                .listener(new ConsultasSql())
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
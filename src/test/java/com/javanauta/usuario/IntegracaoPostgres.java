@@ -0,0 +1,31 @@
+package com.javanauta.usuario;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Base dos testes contra um PostgreSQL de verdade (Testcontainers), com as migrações do Flyway aplicadas no boot.
+// O contêiner é único para a JVM, assim o contexto do Spring reaproveitado entre as classes continua válido.
+// Sem Docker disponível os testes são ignorados.
+// O relay do outbox só roda quando o teste chama, para não consumir os eventos de outros testes
+@SpringBootTest(properties = "outbox.intervalo=1h")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+@Import(ConsultasSql.Configuracao.class)
+public abstract class IntegracaoPostgres {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("db_usuario");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+}
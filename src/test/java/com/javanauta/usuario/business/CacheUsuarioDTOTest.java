@@ -0,0 +1,114 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.database.BarramentoInvalidacao;
+import com.javanauta.usuario.infrastructure.database.ReplicaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Invalidações do cache de usuários e o aviso às outras instâncias, uma vez por email e transação
+class CacheUsuarioDTOTest {
+
+    private final BarramentoInvalidacao barramento = mock(BarramentoInvalidacao.class);
+    private CacheUsuarioDTO cacheUsuarioDTO;
+
+    @BeforeEach
+    void iniciar() {
+        cacheUsuarioDTO = new CacheUsuarioDTO(new UsuarioCacheProperties(), new ReplicaProperties(), barramento,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void encerrar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void variasInvalidacoesNaMesmaTransacaoPublicamUmaVezPorEmailNoCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheUsuarioDTO.invalidar("Usuario@Email.com");
+        cacheUsuarioDTO.invalidar("usuario@email.com");
+        cacheUsuarioDTO.invalidar("novo@email.com");
+        verify(barramento, never()).publicarUsuario(anyString());
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(barramento, times(1)).publicarUsuario("usuario@email.com");
+        verify(barramento, times(1)).publicarUsuario("novo@email.com");
+    }
+
+    @Test
+    void rollbackNaoPublicaMasLimpaOCacheLocal() {
+        AtomicInteger cargas = new AtomicInteger();
+        cacheUsuarioDTO.buscar("usuario@email.com", email -> carregar(cargas));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheUsuarioDTO.invalidar("usuario@email.com");
+        // Leitura concorrente durante a transação recoloca o estado antigo no cache
+        cacheUsuarioDTO.buscar("usuario@email.com", email -> carregar(cargas));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verify(barramento, never()).publicarUsuario(anyString());
+        cacheUsuarioDTO.buscar("usuario@email.com", email -> carregar(cargas));
+        assertThat(cargas).hasValue(3);
+    }
+
+    @Test
+    void foraDeTransacaoPublicaNaHora() {
+        cacheUsuarioDTO.invalidar("usuario@email.com");
+
+        verify(barramento).publicarUsuario("usuario@email.com");
+    }
+
+    @Test
+    void alterarODtoDevolvidoNaoAlteraOCache() {
+        AtomicInteger cargas = new AtomicInteger();
+        UsuarioDTO primeiro = cacheUsuarioDTO.buscar("usuario@email.com", email -> carregar(cargas));
+        primeiro.setNome("Alterado");
+        primeiro.getEnderecos().get(0).setRua("Outra rua");
+        primeiro.getTelefones().clear();
+
+        UsuarioDTO segundo = cacheUsuarioDTO.buscar("usuario@email.com", email -> carregar(cargas));
+        assertThat(cargas).hasValue(1);
+        assertThat(segundo).isNotSameAs(primeiro);
+        assertThat(segundo.getNome()).isEqualTo("Usuário");
+        assertThat(segundo.getSenha()).isNull();
+        assertThat(segundo.getEnderecos().get(0).getRua()).isEqualTo("Rua A");
+        assertThat(segundo.getTelefones()).hasSize(1);
+    }
+
+    private UsuarioDTO carregar(AtomicInteger cargas) {
+        cargas.incrementAndGet();
+        return UsuarioDTO.builder()
+                .nome("Usuário")
+                .email("usuario@email.com")
+                .senha("hash")
+                .enderecos(new ArrayList<>(List.of(EnderecoDTO.builder().rua("Rua A").cep("01001000").build())))
+                .telefones(new ArrayList<>(List.of(TelefoneDTO.builder().ddd("11").numero("999999999").build())))
+                .build();
+    }
+}
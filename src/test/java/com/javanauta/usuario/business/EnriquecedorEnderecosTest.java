@@ -0,0 +1,186 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Enriquecimento de endereços contra um ViaCep falso: uma consulta por CEP, preenchimento só dos campos vazios,
+// descarte de CEPs inexistentes e nova tentativa com espera exponencial até o máximo de tentativas.
+// O agendamento fica parado; cada teste chama enriquecer() diretamente
+@TestPropertySource(properties = {"enriquecimento.intervalo=1h", "enriquecimento.espera-inicial=30s",
+        "enriquecimento.espera-maxima=1h", "enriquecimento.maximo-tentativas=3"})
+class EnriquecedorEnderecosTest extends IntegracaoPostgres {
+
+    private static final String ENDERECO = """
+            {"cep": "%s", "logradouro": "Avenida Paulista", "localidade": "São Paulo", "uf": "SP"}""";
+
+    private static final Map<String, AtomicInteger> CHAMADAS = new ConcurrentHashMap<>();
+    // Status e corpo da resposta por CEP; sem entrada o servidor responde 500
+    private static final Map<String, Map.Entry<Integer, String>> RESPOSTAS = new ConcurrentHashMap<>();
+    private static HttpServer servidor;
+
+    @Autowired
+    private EnriquecedorEnderecos enriquecedor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void viaCep(DynamicPropertyRegistry registry) throws IOException {
+        if (servidor == null) {
+            servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            servidor.createContext("/ws/", EnriquecedorEnderecosTest::responder);
+            servidor.start();
+        }
+        registry.add("viacep.url", () -> "http://localhost:" + servidor.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void pararServidor() {
+        servidor.stop(0);
+        servidor = null;
+    }
+
+    @BeforeEach
+    void iniciar() {
+        // Só os endereços deste teste ficam pendentes
+        jdbcTemplate.update("update endereco set enriquecer_em = null where enriquecer_em is not null");
+        CHAMADAS.clear();
+        RESPOSTAS.clear();
+    }
+
+    @Test
+    void enderecosComOMesmoCepCustamUmaUnicaConsulta() {
+        RESPOSTAS.put("01310100", Map.entry(200, ENDERECO.formatted("01310-100")));
+        long usuario = cadastrarUsuario();
+        long primeiro = cadastrarEndereco(usuario, "01310-100", null, null);
+        long segundo = cadastrarEndereco(usuario, "01310100", null, null);
+
+        enriquecedor.enriquecer();
+
+        assertThat(CHAMADAS.get("01310100")).hasValue(1);
+        for (long endereco : new long[]{primeiro, segundo}) {
+            Map<String, Object> linha = endereco(endereco);
+            assertThat(linha.get("rua")).isEqualTo("Avenida Paulista");
+            assertThat(linha.get("cidade")).isEqualTo("São Paulo");
+            assertThat(linha.get("estado")).isEqualTo("SP");
+            assertThat(linha.get("enriquecer_em")).isNull();
+        }
+        // Cada endereço alterado gera o seu evento
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from outbox_usuario where usuario_id = ? and tipo = 'ENDERECO_ATUALIZADO'",
+                Integer.class, usuario)).isEqualTo(2);
+    }
+
+    @Test
+    void preencheSoOsCamposVazios() {
+        RESPOSTAS.put("01310200", Map.entry(200, ENDERECO.formatted("01310-200")));
+        long endereco = cadastrarEndereco(cadastrarUsuario(), "01310200", "Rua informada", null);
+
+        enriquecedor.enriquecer();
+
+        Map<String, Object> linha = endereco(endereco);
+        assertThat(linha.get("rua")).isEqualTo("Rua informada");
+        assertThat(linha.get("cidade")).isEqualTo("São Paulo");
+        assertThat(linha.get("estado")).isEqualTo("SP");
+    }
+
+    @Test
+    void cepInexistenteEDescartadoSemNovaTentativa() {
+        RESPOSTAS.put("99999990", Map.entry(200, "{\"erro\": true}"));
+        long endereco = cadastrarEndereco(cadastrarUsuario(), "99999990", null, null);
+
+        enriquecedor.enriquecer();
+
+        Map<String, Object> linha = endereco(endereco);
+        assertThat(linha.get("enriquecer_em")).isNull();
+        assertThat(linha.get("tentativas_enriquecimento")).isEqualTo(0);
+        assertThat(linha.get("rua")).isNull();
+        assertThat(CHAMADAS.get("99999990")).hasValue(1);
+    }
+
+    @Test
+    void falhaDoViaCepReagendaComEsperaDobradaAteOMaximoDeTentativas() {
+        long endereco = cadastrarEndereco(cadastrarUsuario(), "01310300", null, null);
+
+        enriquecedor.enriquecer();
+        assertThat(endereco(endereco).get("tentativas_enriquecimento")).isEqualTo(1);
+        assertThat(segundosAteNovaTentativa(endereco)).isBetween(25.0, 31.0);
+
+        liberarNovaTentativa(endereco);
+        enriquecedor.enriquecer();
+        assertThat(endereco(endereco).get("tentativas_enriquecimento")).isEqualTo(2);
+        assertThat(segundosAteNovaTentativa(endereco)).isBetween(55.0, 61.0);
+
+        // Terceira falha com maximo-tentativas=3: desiste do endereço
+        liberarNovaTentativa(endereco);
+        enriquecedor.enriquecer();
+        Map<String, Object> linha = endereco(endereco);
+        assertThat(linha.get("tentativas_enriquecimento")).isEqualTo(3);
+        assertThat(linha.get("enriquecer_em")).isNull();
+        assertThat(CHAMADAS.get("01310300")).hasValue(3);
+    }
+
+    private long cadastrarUsuario() {
+        return jdbcTemplate.queryForObject("""
+                insert into usuario (id, nome, email, senha, versao_token)
+                values (nextval('usuario_seq'), 'Enriquecimento', ?, 'hash', 0) returning id""",
+                Long.class, "enriquecimento-" + UUID.randomUUID() + "@email.com");
+    }
+
+    private long cadastrarEndereco(long usuario, String cep, String rua, String cidade) {
+        return jdbcTemplate.queryForObject("""
+                insert into endereco (id, usuario_id, cep, rua, cidade, numero, enriquecer_em)
+                values (nextval('endereco_seq'), ?, ?, ?, ?, 100, now()) returning id""",
+                Long.class, usuario, cep, rua, cidade);
+    }
+
+    private Map<String, Object> endereco(long id) {
+        return jdbcTemplate.queryForMap("""
+                select rua, cidade, estado, enriquecer_em, tentativas_enriquecimento from endereco where id = ?""", id);
+    }
+
+    private double segundosAteNovaTentativa(long endereco) {
+        return jdbcTemplate.queryForObject(
+                "select extract(epoch from enriquecer_em - now()) from endereco where id = ?", Double.class, endereco);
+    }
+
+    private void liberarNovaTentativa(long endereco) {
+        jdbcTemplate.update("update endereco set enriquecer_em = now() where id = ?", endereco);
+    }
+
+    // Caminho no formato /ws/{cep}/json/
+    private static void responder(HttpExchange troca) {
+        String cep = troca.getRequestURI().getPath().split("/")[2];
+        CHAMADAS.computeIfAbsent(cep, c -> new AtomicInteger()).incrementAndGet();
+        Map.Entry<Integer, String> resposta = RESPOSTAS.getOrDefault(cep, Map.entry(500, "{}"));
+        byte[] corpo = resposta.getValue().getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream saida = troca.getResponseBody()) {
+            troca.sendResponseHeaders(resposta.getKey(), corpo.length);
+            saida.write(corpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.ResultadoImportacaoDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.exceptions.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Eventos gravados em outbox_usuario na mesma transação da alteração: só existem se ela for confirmada
+class OutboxUsuarioTest extends IntegracaoPostgres {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ImportacaoUsuarioService importacaoUsuarioService;
+
+    @Autowired
+    private OutboxUsuario outboxUsuario;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cadastroGravaOEventoSemOHashDaSenha() {
+        String email = novoEmail();
+
+        usuarioService.salvaUsuario(UsuarioDTO.builder().nome("Evento").email(email).senha("senha123").build());
+
+        assertThat(eventos(email, "USUARIO_CRIADO")).isEqualTo(1);
+        String dados = jdbcTemplate.queryForObject("select dados::text from outbox_usuario where email = ?",
+                String.class, email);
+        assertThat(dados).contains(email).doesNotContain("senha");
+    }
+
+    @Test
+    void eventoDesfeitoJuntoComOUsuarioNoRollback() {
+        String email = novoEmail();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            usuarioService.salvaUsuario(UsuarioDTO.builder().nome("Evento").email(email).senha("senha123").build());
+            // Usuário e evento gravados na mesma transação, visíveis dentro dela
+            assertThat(usuarios(email)).isEqualTo(1);
+            assertThat(eventos(email, "USUARIO_CRIADO")).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(usuarios(email)).isZero();
+        assertThat(eventos(email, "USUARIO_CRIADO")).isZero();
+    }
+
+    @Test
+    void cadastroRecusadoPorEmailRepetidoNaoGravaEvento() {
+        String email = novoEmail();
+        usuarioService.salvaUsuario(UsuarioDTO.builder().nome("Primeiro").email(email).senha("senha123").build());
+
+        assertThatThrownBy(() -> usuarioService.salvaUsuario(
+                UsuarioDTO.builder().nome("Segundo").email(email.toUpperCase()).senha("senha123").build()))
+                .isInstanceOf(ConflictException.class);
+
+        assertThat(eventos(email, "USUARIO_CRIADO")).isEqualTo(1);
+    }
+
+    @Test
+    void registrarExigeATransacaoDaAlteracao() {
+        assertThatThrownBy(() -> outboxUsuario.registrar(TipoEventoUsuario.USUARIO_ATUALIZADO, 1L, novoEmail(), null))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void importacaoGravaUmEventoPorUsuarioImportado() {
+        String primeiro = novoEmail();
+        String segundo = novoEmail();
+        String corpo = """
+                {"nome": "Primeiro", "email": "%s", "senha": "senha123"}
+                {"nome": "Segundo", "email": "%s", "senha": "senha123"}
+                {"nome": "Repetido", "email": "%s", "senha": "senha123"}
+                """.formatted(primeiro, segundo, primeiro);
+
+        ResultadoImportacaoDTO resultado = importacaoUsuarioService.importaUsuarios(
+                new ByteArrayInputStream(corpo.getBytes(StandardCharsets.UTF_8)), ImportacaoUsuarioService.NDJSON);
+
+        assertThat(resultado.getImportados()).isEqualTo(2);
+        assertThat(eventos(primeiro, "USUARIO_CRIADO")).isEqualTo(1);
+        assertThat(eventos(segundo, "USUARIO_CRIADO")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("""
+                select count(*) from outbox_usuario o join usuario u on u.id = o.usuario_id
+                where o.email = ? and o.dados::text not like '%senha%'""", Integer.class, segundo)).isEqualTo(1);
+    }
+
+    private int eventos(String email, String tipo) {
+        return jdbcTemplate.queryForObject("select count(*) from outbox_usuario where lower(email) = lower(?) and tipo = ?",
+                Integer.class, email, tipo);
+    }
+
+    private int usuarios(String email) {
+        return jdbcTemplate.queryForObject("select count(*) from usuario where lower(email) = lower(?)",
+                Integer.class, email);
+    }
+
+    private String novoEmail() {
+        return "outbox-" + UUID.randomUUID() + "@email.com";
+    }
+}
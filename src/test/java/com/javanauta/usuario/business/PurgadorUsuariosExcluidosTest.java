@@ -0,0 +1,108 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.ConsultasSql;
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Exclusão lógica: o usuário marcado some das consultas JPA, libera o email e é removido depois pelo purgador.
+// O agendamento fica parado; cada teste chama purgar() diretamente
+@TestPropertySource(properties = {"exclusao.logica=true", "exclusao.intervalo-purga=1h",
+        "exclusao.tamanho-lote-purga=2"})
+class PurgadorUsuariosExcluidosTest extends IntegracaoPostgres {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PurgadorUsuariosExcluidos purgador;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void iniciar() {
+        // Só os usuários excluídos por este teste aguardam a purga
+        purgador.purgar();
+    }
+
+    @Test
+    void usuarioExcluidoFicaInvisivelELiberaOEmail() {
+        String email = novoEmail();
+        usuarioService.salvaUsuario(usuario(email));
+
+        usuarioService.deletaUsuarioPorEmail(email);
+
+        // A linha continua no banco, marcada, mas as consultas JPA não a enxergam
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from usuario where lower(email) = ? and excluido_em is not null", Integer.class, email))
+                .isEqualTo(1);
+        assertThat(usuarioRepository.findByEmail(email)).isEmpty();
+        assertThatThrownBy(() -> usuarioService.buscarUsuarioPorEmail(email))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        // O índice único parcial ignora a linha excluída: o mesmo email pode ser cadastrado de novo
+        usuarioService.salvaUsuario(usuario(email.toUpperCase()));
+        assertThat(usuarioService.buscarUsuarioPorEmail(email).getEnderecos()).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from usuario where lower(email) = ?",
+                Integer.class, email)).isEqualTo(2);
+    }
+
+    @Test
+    void purgaRemoveUsuariosEnderecosETelefonesEmLotes() throws Exception {
+        List<Long> excluidos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String email = novoEmail();
+            usuarioService.salvaUsuario(usuario(email));
+            excluidos.add(usuarioRepository.buscaIdPorEmail(email).orElseThrow());
+            usuarioService.deletaUsuarioPorEmail(email);
+        }
+        String mantido = novoEmail();
+        usuarioService.salvaUsuario(usuario(mantido));
+
+        List<String> comandos = ConsultasSql.capturar(() -> purgador.purgar());
+
+        // 5 usuários em lotes de 2: três transações, cada uma com os deletes dos filhos e do usuário
+        assertThat(ConsultasSql.contar(comandos, "delete from usuario")).isEqualTo(3);
+        assertThat(ConsultasSql.contar(comandos, "delete from endereco")).isEqualTo(3);
+        assertThat(ConsultasSql.contar(comandos, "delete from telefone")).isEqualTo(3);
+        for (String tabela : List.of("usuario where id", "endereco where usuario_id", "telefone where usuario_id")) {
+            assertThat(jdbcTemplate.queryForObject("select count(*) from " + tabela + " = any(?)", Integer.class,
+                    (Object) excluidos.toArray(Long[]::new))).as(tabela).isZero();
+        }
+        assertThat(usuarioService.buscarUsuarioPorEmail(mantido).getTelefones()).hasSize(1);
+    }
+
+    private UsuarioDTO usuario(String email) {
+        return UsuarioDTO.builder()
+                .nome("Excluído")
+                .email(email)
+                .senha("senha123")
+                .enderecos(List.of(EnderecoDTO.builder().rua("Rua A").numero(10L).cidade("São Paulo")
+                        .estado("SP").cep("01001000").build()))
+                .telefones(List.of(TelefoneDTO.builder().ddd("11").numero("999999999").build()))
+                .build();
+    }
+
+    private String novoEmail() {
+        return "purga-" + UUID.randomUUID() + "@email.com";
+    }
+}
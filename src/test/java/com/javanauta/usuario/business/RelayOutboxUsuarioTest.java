@@ -0,0 +1,122 @@
+package com.javanauta.usuario.business;
+
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import com.javanauta.usuario.infrastructure.eventos.DestinoEventos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Relay do outbox: reserva o lote, publica fora de transação e remove só o que foi entregue
+class RelayOutboxUsuarioTest extends IntegracaoPostgres {
+
+    @MockBean
+    private DestinoEventos destino;
+
+    @Autowired
+    private RelayOutboxUsuario relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> entregues = new ArrayList<>();
+
+    @BeforeEach
+    void iniciar() {
+        jdbcTemplate.update("delete from outbox_usuario");
+        doAnswer(invocacao -> {
+            List<EventoUsuarioDTO> eventos = invocacao.getArgument(0);
+            eventos.forEach(evento -> entregues.add(evento.getId()));
+            return null;
+        }).when(destino).publicar(anyList());
+    }
+
+    @Test
+    void publicaForaDeTransacaoComOLoteReservadoERemoveOsEntregues() {
+        List<Long> ids = registrarEventos(3);
+        AtomicBoolean emTransacao = new AtomicBoolean(true);
+        AtomicInteger reservados = new AtomicInteger();
+        doAnswer(invocacao -> {
+            emTransacao.set(TransactionSynchronizationManager.isActualTransactionActive());
+            // A reserva já foi confirmada: é visível para qualquer outra conexão
+            reservados.set(jdbcTemplate.queryForObject(
+                    "select count(*) from outbox_usuario where reservado_ate > now()", Integer.class));
+            List<EventoUsuarioDTO> eventos = invocacao.getArgument(0);
+            eventos.forEach(evento -> entregues.add(evento.getId()));
+            return null;
+        }).when(destino).publicar(anyList());
+
+        relay.publicar();
+
+        assertThat(emTransacao).isFalse();
+        assertThat(reservados).hasValue(3);
+        assertThat(entregues).containsExactlyElementsOf(ids);
+        assertThat(pendentes()).isZero();
+    }
+
+    @Test
+    void falhaNoDestinoLiberaOLoteParaANovaTentativa() {
+        List<Long> ids = registrarEventos(2);
+        doThrow(new IllegalStateException("destino fora")).when(destino).publicar(anyList());
+
+        relay.publicar();
+
+        assertThat(pendentes()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from outbox_usuario where reservado_ate is not null", Integer.class)).isZero();
+
+        doAnswer(invocacao -> {
+            List<EventoUsuarioDTO> eventos = invocacao.getArgument(0);
+            eventos.forEach(evento -> entregues.add(evento.getId()));
+            return null;
+        }).when(destino).publicar(anyList());
+        relay.publicar();
+        assertThat(entregues).containsExactlyElementsOf(ids);
+        assertThat(pendentes()).isZero();
+    }
+
+    @Test
+    void loteReservadoPorOutraInstanciaBloqueiaNovasReservasAteVencer() {
+        List<Long> ids = registrarEventos(3);
+        jdbcTemplate.update("update outbox_usuario set reservado_ate = now() + interval '1 minute' where id = ?",
+                ids.get(0));
+
+        relay.publicar();
+        verify(destino, never()).publicar(anyList());
+
+        // Instância que caiu publicando: a reserva vence e o lote é reenviado a partir do mesmo evento
+        jdbcTemplate.update("update outbox_usuario set reservado_ate = now() - interval '1 second' where id = ?",
+                ids.get(0));
+        relay.publicar();
+        assertThat(entregues).containsExactlyElementsOf(ids);
+    }
+
+    private List<Long> registrarEventos(int quantidade) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            ids.add(jdbcTemplate.queryForObject("""
+                    insert into outbox_usuario (usuario_id, tipo, email) values (?, 'USUARIO_ATUALIZADO', ?)
+                    returning id""", Long.class, 1000L + i, "evento" + i + "@email.com"));
+        }
+        return ids;
+    }
+
+    private int pendentes() {
+        return jdbcTemplate.queryForObject("select count(*) from outbox_usuario", Integer.class);
+    }
+}
@@ -0,0 +1,321 @@
+package com.javanauta.usuario.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.business.dto.ResultadoCepDTO;
+import com.javanauta.usuario.infrastructure.clients.DiretorioCep;
+import com.javanauta.usuario.infrastructure.clients.ViaCepClient;
+import com.javanauta.usuario.infrastructure.clients.ViaCepClientResiliente;
+import com.javanauta.usuario.infrastructure.clients.ViaCepDTO;
+import com.javanauta.usuario.infrastructure.exceptions.IllegalArgumentException;
+import com.javanauta.usuario.infrastructure.exceptions.ResourceNotFoundException;
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// ViaCepService contra um ViaCep falso em um HttpServer local: cache, carga única, timeout e mapeamento de erros
+class ViaCepServiceTest {
+
+    private static final String ENDERECO = """
+            {"cep": "01001-000", "logradouro": "Praça da Sé", "localidade": "São Paulo", "uf": "SP", "campo_novo": 1}""";
+
+    private HttpServer servidor;
+    private ExecutorService threadsServidor;
+    private final Map<String, AtomicInteger> chamadas = new ConcurrentHashMap<>();
+    // Resposta do servidor falso por CEP
+    private final Map<String, Resposta> respostas = new ConcurrentHashMap<>();
+    private ViaCepClient client;
+    private ViaCepService viaCepService;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        threadsServidor = Executors.newCachedThreadPool();
+        servidor.setExecutor(threadsServidor);
+        servidor.createContext("/ws/", this::responder);
+        servidor.start();
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        client = Feign.builder()
+                .contract(new SpringMvcContract())
+                .decoder((response, tipo) -> objectMapper.readValue(response.body().asInputStream(),
+                        objectMapper.constructType(tipo)))
+                .options(new Request.Options(500, TimeUnit.MILLISECONDS, 300, TimeUnit.MILLISECONDS, true))
+                .retryer(Retryer.NEVER_RETRY)
+                .target(ViaCepClient.class, "http://localhost:" + servidor.getAddress().getPort());
+
+        viaCepService = criarServico(new ViaCepProperties());
+    }
+
+    @AfterEach
+    void encerrar() {
+        viaCepService.encerrar();
+        servidor.stop(0);
+        threadsServidor.shutdownNow();
+    }
+
+    @Test
+    void buscasSimultaneasPeloMesmoCepFazemUmaUnicaChamada() throws Exception {
+        respostas.put("01001000", new Resposta(200, ENDERECO, 150));
+        int threads = 16;
+        ExecutorService clientes = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ViaCepDTO>> buscas = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            // Formatos diferentes do mesmo CEP caem na mesma entrada do cache
+            String cep = i % 2 == 0 ? "01001-000" : "01001000";
+            buscas.add(clientes.submit(() -> {
+                largada.await();
+                return viaCepService.buscarDadosEndereco(cep);
+            }));
+        }
+        largada.countDown();
+        for (Future<ViaCepDTO> busca : buscas) {
+            assertThat(busca.get(5, TimeUnit.SECONDS).getLogradouro()).isEqualTo("Praça da Sé");
+        }
+        clientes.shutdown();
+
+        assertThat(chamadas("01001000")).isEqualTo(1);
+        viaCepService.buscarDadosEndereco("01001000");
+        assertThat(chamadas("01001000")).isEqualTo(1);
+    }
+
+    @Test
+    void cepInexistenteFicaNoCacheNegativo() {
+        respostas.put("99999999", new Resposta(200, "{\"erro\": true}", 0));
+
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("99999-999"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("99999999"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(chamadas("99999999")).isEqualTo(1);
+    }
+
+    @Test
+    void viaCepLentoViraServicoIndisponivelNoTimeoutDeLeitura() {
+        respostas.put("22222222", new Resposta(200, ENDERECO, 2000));
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("22222222"))
+                .isInstanceOf(ServicoIndisponivelException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1500);
+    }
+
+    @Test
+    void erroDoViaCepViraServicoIndisponivelSemEntrarNoCache() {
+        respostas.put("33333333", new Resposta(500, "{}", 0));
+
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("33333333"))
+                .isInstanceOf(ServicoIndisponivelException.class);
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("33333333"))
+                .isInstanceOf(ServicoIndisponivelException.class);
+        // Falhas não ficam no cache: cada busca tenta o ViaCep de novo
+        assertThat(chamadas("33333333")).isEqualTo(2);
+    }
+
+    @Test
+    void cepInvalidoRecusadoSemChamarOViaCep() {
+        assertThatThrownBy(() -> viaCepService.buscarDadosEndereco("0100-ABC"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(chamadas).isEmpty();
+    }
+
+    @Test
+    void cepAntigoEDevolvidoNaHoraERevalidadoEmSegundoPlano() throws Exception {
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getCache().setRevalidarApos(Duration.ofMillis(200));
+        viaCepService.encerrar();
+        viaCepService = criarServico(properties);
+        respostas.put("01001000", new Resposta(200, ENDERECO, 0));
+        assertThat(viaCepService.buscarDadosEndereco("01001000").getLogradouro()).isEqualTo("Praça da Sé");
+
+        respostas.put("01001000", new Resposta(200, ENDERECO.replace("Praça da Sé", "Praça da Sé, lado par"), 150));
+        Thread.sleep(300);
+        // Passado o revalidar-apos, a busca não espera o ViaCep: devolve o valor antigo e dispara a revalidação
+        long inicio = System.nanoTime();
+        assertThat(viaCepService.buscarDadosEndereco("01001000").getLogradouro()).isEqualTo("Praça da Sé");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(100);
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!viaCepService.buscarDadosEndereco("01001000").getLogradouro().endsWith("lado par")) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(20);
+        }
+        assertThat(chamadas("01001000")).isEqualTo(2);
+    }
+
+    @Test
+    void falhaNaRevalidacaoMantemOValorAntigo() throws Exception {
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getCache().setRevalidarApos(Duration.ofMillis(200));
+        viaCepService.encerrar();
+        viaCepService = criarServico(properties);
+        respostas.put("01001000", new Resposta(200, ENDERECO, 0));
+        viaCepService.buscarDadosEndereco("01001000");
+
+        respostas.put("01001000", new Resposta(500, "{}", 0));
+        Thread.sleep(300);
+        viaCepService.buscarDadosEndereco("01001000");
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (chamadas("01001000") < 2) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+        assertThat(viaCepService.buscarDadosEndereco("01001000").getLogradouro()).isEqualTo("Praça da Sé");
+    }
+
+    @Test
+    void loteRecusadoComFilaDoExecutorCheia() {
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getLote().setParalelismo(1);
+        properties.getLote().setCapacidadeFila(1);
+        viaCepService.encerrar();
+        viaCepService = criarServico(properties);
+        respostas.put("01001000", new Resposta(200, ENDERECO, 150));
+
+        // Uma thread e uma vaga na fila: o terceiro CEP distinto não cabe e o lote vira 503
+        assertThatThrownBy(() -> viaCepService.buscarDadosEnderecos(List.of("01001000", "01001001", "01001002")))
+                .isInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    @Test
+    void loteUsaOCepEnviadoComoChaveNaOrdemDaLista() {
+        respostas.put("01001000", new Resposta(200, ENDERECO, 0));
+
+        Map<String, ResultadoCepDTO> resultado =
+                viaCepService.buscarDadosEnderecos(List.of("0100-ABC", "01001-000", "01001000", "01001-000"));
+
+        // Formatos diferentes do mesmo CEP aparecem cada um com a sua chave, mas o ViaCep é consultado uma vez
+        assertThat(resultado).containsOnlyKeys("0100-ABC", "01001-000", "01001000");
+        assertThat(new ArrayList<>(resultado.keySet())).containsExactly("0100-ABC", "01001-000", "01001000");
+        assertThat(resultado.get("0100-ABC").getErro()).isNotNull();
+        assertThat(resultado.get("01001-000").getEndereco().getLogradouro()).isEqualTo("Praça da Sé");
+        assertThat(resultado.get("01001000").getEndereco().getLogradouro()).isEqualTo("Praça da Sé");
+        assertThat(chamadas("01001000")).isEqualTo(1);
+    }
+
+    @Test
+    void loteRecusadoComVirtualThreadsAlemDoLimite() {
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getLote().setParalelismoVirtual(1);
+        properties.getLote().setCapacidadeFila(1);
+        viaCepService.encerrar();
+        viaCepService = criarServico(properties, true);
+        respostas.put("01001000", new Resposta(200, ENDERECO, 150));
+
+        // Mesmos limites do pool fixo, agora nos semáforos: o terceiro CEP distinto é rejeitado
+        assertThatThrownBy(() -> viaCepService.buscarDadosEnderecos(List.of("01001000", "01001001", "01001002")))
+                .isInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    @Test
+    void loteComVirtualThreadsTerminaAntesComViaCepLento() {
+        List<String> ceps = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            String cep = String.format("%08d", 10000000 + i);
+            respostas.put(cep, new Resposta(200, ENDERECO.replace("01001-000", cep), 200));
+            ceps.add(cep);
+        }
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getResiliencia().setMaxChamadasSimultaneas(48);
+        properties.getResiliencia().setChamadaLenta(Duration.ofSeconds(5));
+        properties.getLote().setParalelismo(8);
+        properties.getLote().setParalelismoVirtual(48);
+        viaCepService.encerrar();
+
+        // Pool fixo: 48 CEPs de 200 ms em 8 threads levam ao menos 6 rodadas
+        viaCepService = criarServico(properties, false);
+        long plataforma = cronometrar(() -> viaCepService.buscarDadosEnderecos(ceps));
+        viaCepService.encerrar();
+
+        // Virtual threads: todos os CEPs esperam o ViaCep ao mesmo tempo, limitados apenas pelo semáforo
+        chamadas.clear();
+        Map<String, Boolean> threadsVirtuais = new ConcurrentHashMap<>();
+        ViaCepClient clientDaPlataforma = client;
+        client = cep -> {
+            threadsVirtuais.put(cep, Thread.currentThread().isVirtual());
+            return clientDaPlataforma.buscaDadosEndereco(cep);
+        };
+        viaCepService = criarServico(properties, true);
+        long virtual = cronometrar(() -> assertThat(viaCepService.buscarDadosEnderecos(ceps).values())
+                .allMatch(resultado -> resultado.getEndereco() != null));
+
+        System.out.printf("Lote de %d CEPs: pool fixo %d ms, virtual threads %d ms%n", ceps.size(), plataforma, virtual);
+        assertThat(plataforma).isGreaterThanOrEqualTo(1200);
+        assertThat(virtual).isLessThan(plataforma / 2);
+        assertThat(threadsVirtuais).hasSize(ceps.size()).doesNotContainValue(false);
+    }
+
+    private long cronometrar(Runnable acao) {
+        long inicio = System.nanoTime();
+        acao.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+
+    private ViaCepService criarServico(ViaCepProperties properties) {
+        return criarServico(properties, false);
+    }
+
+    private ViaCepService criarServico(ViaCepProperties properties, boolean threadsVirtuais) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ViaCepService(new ViaCepClientResiliente(client, properties, meterRegistry),
+                new DiretorioCep(properties), properties, meterRegistry, threadsVirtuais);
+    }
+
+    private int chamadas(String cep) {
+        AtomicInteger contador = chamadas.get(cep);
+        return contador != null ? contador.get() : 0;
+    }
+
+    // Caminho no formato /ws/{cep}/json/
+    private void responder(HttpExchange troca) throws IOException {
+        String cep = troca.getRequestURI().getPath().split("/")[2];
+        chamadas.computeIfAbsent(cep, c -> new AtomicInteger()).incrementAndGet();
+        Resposta resposta = respostas.getOrDefault(cep, new Resposta(404, "{}", 0));
+        try {
+            Thread.sleep(resposta.atrasoMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        byte[] corpo = resposta.corpo().getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream saida = troca.getResponseBody()) {
+            troca.sendResponseHeaders(resposta.status(), corpo.length);
+            saida.write(corpo);
+        } catch (IOException e) {
+            // Cliente desistiu por timeout
+        }
+    }
+
+    private record Resposta(int status, String corpo, long atrasoMs) {
+    }
+}
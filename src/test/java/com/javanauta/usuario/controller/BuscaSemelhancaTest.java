@@ -0,0 +1,127 @@
+package com.javanauta.usuario.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Busca por semelhança (pg_trgm) em GET /usuario/busca: ordem pela semelhança, usuários excluídos de fora
+// e o statement_timeout da consulta devolvido como 503
+class BuscaSemelhancaTest extends IntegracaoPostgres {
+
+    private static final String SENHA = "senha123$";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private String token;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        token = loginAdministrador();
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuario where email like 'busca-%@busca.com'");
+    }
+
+    @Test
+    void termoComErroDeDigitacaoOrdenadoPelaSemelhanca() throws Exception {
+        inserirUsuario("Ximenes Quintino");
+        inserirUsuario("Ximenes Pereira");
+        inserirUsuario("Ximenes Quintanilla");
+        inserirUsuario("Ximenes Quintanilha");
+
+        // word_similarity com "Quintanlha": Quintanilha 0,64, Quintanilla 0,64, Quintino 0,45 e Pereira 0
+        assertThat(buscar("Quintanlha"))
+                .containsExactly("Ximenes Quintanilha", "Ximenes Quintanilla", "Ximenes Quintino");
+    }
+
+    @Test
+    void usuarioExcluidoNaoApareceNaBusca() throws Exception {
+        inserirUsuario("Ximenes Quintanilha");
+        long excluido = inserirUsuario("Ximenes Quintanilha Neto");
+        jdbcTemplate.update("update usuario set excluido_em = now() where id = ?", excluido);
+
+        assertThat(buscar("Quintanilha")).containsExactly("Ximenes Quintanilha");
+    }
+
+    @Test
+    void consultaAlemDoTempoMaximoViraServicoIndisponivel() throws Exception {
+        inserirUsuario("Ximenes Quintanilha");
+        // Outra transação segura a tabela: a busca espera o lock até o statement_timeout (busca.tempo-maximo)
+        try (Connection bloqueio = dataSource.getConnection()) {
+            bloqueio.setAutoCommit(false);
+            try (Statement statement = bloqueio.createStatement()) {
+                statement.execute("lock table usuario in access exclusive mode");
+            }
+            long inicio = System.nanoTime();
+            mockMvc.perform(get("/usuario/busca").param("termo", "Quintanilha")
+                            .header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isServiceUnavailable());
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(3000);
+            bloqueio.rollback();
+        }
+    }
+
+    private List<String> buscar(String termo) throws Exception {
+        String json = mockMvc.perform(get("/usuario/busca").param("termo", termo)
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, new TypeReference<List<UsuarioDTO>>() {
+        }).stream().map(UsuarioDTO::getNome).toList();
+    }
+
+    private long inserirUsuario(String nome) {
+        return jdbcTemplate.queryForObject("""
+                insert into usuario (id, nome, email, senha, versao_token)
+                values (nextval('usuario_seq'), ?, ?, 'hash', 0) returning id""",
+                Long.class, nome, "busca-" + UUID.randomUUID() + "@busca.com");
+    }
+
+    private String loginAdministrador() throws Exception {
+        String email = "admin-busca-" + UUID.randomUUID() + "@email.com";
+        mockMvc.perform(post("/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder()
+                                .nome("Administrador").email(email).senha(SENHA).build())))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("update usuario set administrador = true where email = ?", email);
+        return mockMvc.perform(post("/usuario/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder().email(email).senha(SENHA).build())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.javanauta.usuario.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.PaginaUsuariosDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Listagem paginada por chave (keyset): cada teste usa um prefixo de nome próprio para enxergar só os seus usuários
+class ListagemUsuariosTest extends IntegracaoPostgres {
+
+    private static final String SENHA = "senha123$";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private String prefixo;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        token = loginAdministrador();
+        prefixo = "Lista" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+
+    @Test
+    void percorreAsPaginasPorIdEPorEmail() throws Exception {
+        List<String> nomes = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Emails em ordem inversa à dos ids
+            String nome = prefixo + "-" + i;
+            inserirUsuario(nome, (char) ('g' - i) + "-" + UUID.randomUUID() + "@lista.com");
+            nomes.add(nome);
+        }
+
+        assertThat(percorrer("id", 3)).containsExactlyElementsOf(nomes);
+        assertThat(percorrer("email", 3)).containsExactlyElementsOf(nomes.reversed());
+    }
+
+    @Test
+    void cursorDeOutraOrdenacaoERecusado() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            inserirUsuario(prefixo + "-" + i, "cursor-" + UUID.randomUUID() + "@lista.com");
+        }
+        String cursor = pagina("id", null, 2).getProximoCursor();
+        assertThat(cursor).isNotNull();
+
+        mockMvc.perform(listar("email", cursor, 2)).andExpect(status().isBadRequest());
+        mockMvc.perform(listar("id", "nao-e-um-cursor", 2)).andExpect(status().isBadRequest());
+        mockMvc.perform(listar("nome", null, 2)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void percentualESublinhadoNoPrefixoSaoLiterais() throws Exception {
+        inserirUsuario(prefixo + "%desconto", "percentual-" + UUID.randomUUID() + "@lista.com");
+        inserirUsuario(prefixo + "_sublinhado", "sublinhado-" + UUID.randomUUID() + "@lista.com");
+        inserirUsuario(prefixo + "Xcomum", "comum-" + UUID.randomUUID() + "@lista.com");
+
+        assertThat(nomes(pagina("id", null, 10, prefixo + "%"))).containsExactly(prefixo + "%desconto");
+        assertThat(nomes(pagina("id", null, 10, prefixo + "_"))).containsExactly(prefixo + "_sublinhado");
+        assertThat(nomes(pagina("id", null, 10, prefixo.toUpperCase()))).hasSize(3);
+    }
+
+    @Test
+    void filtroPorEstadoECidadeExigeUmEnderecoQueAtendaOsDois() throws Exception {
+        long paulistano = inserirUsuario(prefixo + "-paulistano", "sp-" + UUID.randomUUID() + "@lista.com");
+        inserirEndereco(paulistano, "SP", "São Paulo");
+        long carioca = inserirUsuario(prefixo + "-carioca", "rj-" + UUID.randomUUID() + "@lista.com");
+        inserirEndereco(carioca, "RJ", "Rio de Janeiro");
+        long mineiro = inserirUsuario(prefixo + "-mineiro", "mg-" + UUID.randomUUID() + "@lista.com");
+        inserirEndereco(mineiro, "MG", "Belo Horizonte");
+        inserirEndereco(mineiro, "SP", "Campinas");
+        inserirEndereco(mineiro, "SP", "Santos");
+
+        // Vários endereços no mesmo estado não repetem o usuário
+        assertThat(nomes(filtrar("sp", null))).containsExactly(prefixo + "-paulistano", prefixo + "-mineiro");
+        assertThat(nomes(filtrar(null, "são paulo"))).containsExactly(prefixo + "-paulistano");
+        assertThat(nomes(filtrar("SP", "Campinas"))).containsExactly(prefixo + "-mineiro");
+        // Estado e cidade de endereços diferentes não bastam
+        assertThat(nomes(filtrar("SP", "Belo Horizonte"))).isEmpty();
+    }
+
+    private List<String> percorrer(String ordem, int tamanho) throws Exception {
+        List<String> nomes = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            PaginaUsuariosDTO pagina = pagina(ordem, cursor, tamanho);
+            assertThat(pagina.getUsuarios().size()).isLessThanOrEqualTo(tamanho);
+            nomes.addAll(nomes(pagina));
+            cursor = pagina.getProximoCursor();
+            paginas++;
+        } while (cursor != null);
+        assertThat(paginas).isEqualTo((nomes.size() + tamanho - 1) / tamanho);
+        return nomes;
+    }
+
+    private PaginaUsuariosDTO pagina(String ordem, String cursor, int tamanho) throws Exception {
+        return pagina(ordem, cursor, tamanho, prefixo);
+    }
+
+    private PaginaUsuariosDTO pagina(String ordem, String cursor, int tamanho, String nome) throws Exception {
+        return ler(mockMvc.perform(listar(ordem, cursor, tamanho).param("nome", nome))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private PaginaUsuariosDTO filtrar(String estado, String cidade) throws Exception {
+        MockHttpServletRequestBuilder requisicao = listar("id", null, 10).param("nome", prefixo);
+        if (estado != null) {
+            requisicao.param("estado", estado);
+        }
+        if (cidade != null) {
+            requisicao.param("cidade", cidade);
+        }
+        return ler(mockMvc.perform(requisicao).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private MockHttpServletRequestBuilder listar(String ordem, String cursor, int tamanho) {
+        MockHttpServletRequestBuilder requisicao = get("/usuario/lista")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .param("ordem", ordem)
+                .param("tamanho", String.valueOf(tamanho));
+        if (cursor != null) {
+            requisicao.param("cursor", cursor);
+        }
+        return requisicao;
+    }
+
+    private PaginaUsuariosDTO ler(String json) throws Exception {
+        return objectMapper.readValue(json, PaginaUsuariosDTO.class);
+    }
+
+    private List<String> nomes(PaginaUsuariosDTO pagina) {
+        return pagina.getUsuarios().stream().map(UsuarioDTO::getNome).toList();
+    }
+
+    private long inserirUsuario(String nome, String email) {
+        return jdbcTemplate.queryForObject("""
+                insert into usuario (id, nome, email, senha, versao_token)
+                values (nextval('usuario_seq'), ?, ?, 'hash', 0) returning id""", Long.class, nome, email);
+    }
+
+    private void inserirEndereco(long usuario, String estado, String cidade) {
+        jdbcTemplate.update("""
+                insert into endereco (id, usuario_id, rua, numero, cidade, estado, cep)
+                values (nextval('endereco_seq'), ?, 'Rua', 1, ?, ?, '01001000')""", usuario, cidade, estado);
+    }
+
+    private String loginAdministrador() throws Exception {
+        String email = "admin-lista-" + UUID.randomUUID() + "@email.com";
+        mockMvc.perform(post("/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder()
+                                .nome("Administrador").email(email).senha(SENHA).build())))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("update usuario set administrador = true where email = ?", email);
+        return mockMvc.perform(post("/usuario/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder().email(email).senha(SENHA).build())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,287 @@
+package com.javanauta.usuario.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.ConsultasSql;
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.EnderecoDTO;
+import com.javanauta.usuario.business.dto.TelefoneDTO;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Endpoints de usuário contra o PostgreSQL, contando os comandos SQL de cada requisição
+class UsuarioControllerTest extends IntegracaoPostgres {
+
+    private static final String SENHA = "senha123$";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void buscaPorEmailCarregaUsuarioEColecoesSemNMaisUm() throws Exception {
+        String email = cadastrar(3, 2);
+        String token = login(email);
+
+        List<String> comandos = ConsultasSql.capturar(() -> mockMvc.perform(get("/usuario")
+                        .param("email", email)
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk()));
+
+        // Uma consulta do usuário com os endereços e outra com os telefones, sem uma consulta por item
+        assertThat(comandos).hasSize(2);
+        assertThat(comandos).allMatch(comando -> comando.startsWith("select"));
+
+        // A segunda busca sai do cache
+        assertThat(ConsultasSql.capturar(() -> mockMvc.perform(get("/usuario")
+                        .param("email", email)
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk()))).isEmpty();
+    }
+
+    @Test
+    void atualizacaoParcialEnviaUmUnicoUpdateSoComAsColunasAlteradas() throws Exception {
+        String email = cadastrar(3, 2);
+        String token = login(email);
+
+        List<String> comandos = ConsultasSql.capturar(() -> mockMvc.perform(patch("/usuario")
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\": \"Nome Alterado\"}"))
+                .andExpect(status().isOk()));
+
+        assertThat(ConsultasSql.contar(comandos, "update")).isEqualTo(1);
+        String update = comandos.stream().filter(comando -> comando.startsWith("update")).findFirst().orElseThrow();
+        assertThat(update).startsWith("update usuario set nome=? where id=?");
+        // Sem merge: só as duas consultas da carga completa, sem reescrever endereços e telefones
+        assertThat(ConsultasSql.contar(comandos, "select u1_0.")).isEqualTo(2);
+        assertThat(ConsultasSql.contar(comandos, "delete")).isZero();
+        assertThat(ConsultasSql.contar(comandos, "insert into endereco")).isZero();
+        assertThat(ConsultasSql.contar(comandos, "insert into telefone")).isZero();
+    }
+
+    @Test
+    void mergeDaEntidadeRemontadaCustaMaisQueAAtualizacaoDaEntidadeGerenciada() throws Exception {
+        String email = cadastrar(3, 2);
+
+        // Caminho antigo: o conversor montava uma entidade nova com o builder e o save fazia merge dela
+        List<String> antigo = ConsultasSql.capturar(() -> {
+            Usuario carregado = usuarioRepository.findByEmail(email).orElseThrow();
+            usuarioRepository.save(Usuario.builder()
+                    .id(carregado.getId())
+                    .nome("Nome pelo merge")
+                    .email(carregado.getEmail())
+                    .senha(carregado.getSenha())
+                    .enderecos(carregado.getEnderecos())
+                    .telefones(carregado.getTelefones())
+                    .build());
+        });
+        // Caminho novo: altera a entidade gerenciada na transação e o dirty checking gera o update
+        List<String> novo = ConsultasSql.capturar(() -> transactionTemplate.executeWithoutResult(status ->
+                usuarioRepository.findByEmail(email).orElseThrow().setNome("Nome pelo dirty checking")));
+
+        // O merge recarrega o usuário com endereços e telefones antes de copiar o estado da entidade remontada
+        assertThat(ConsultasSql.contar(antigo, "select")).isEqualTo(3);
+        assertThat(antigo).anyMatch(sql -> sql.contains(" from telefone "));
+        assertThat(ConsultasSql.contar(novo, "select")).isEqualTo(1);
+        assertThat(ConsultasSql.contar(antigo, "update usuario")).isEqualTo(1);
+        assertThat(novo).containsExactly(novo.get(0), "update usuario set nome=? where id=?");
+    }
+
+    @Test
+    void cadastroGravaOUsuarioComUmUnicoInsertSemConsultaPrevia() throws Exception {
+        String email = "usuario-" + UUID.randomUUID() + "@email.com";
+
+        List<String> comandos = ConsultasSql.capturar(() -> cadastrar(email, 0, 0));
+
+        assertThat(ConsultasSql.contar(comandos, "insert into usuario")).isEqualTo(1);
+        // Nada de existsByEmail antes do insert: o índice único decide
+        List<String> antesDoInsert = comandos.subList(0, comandos.indexOf(comandos.stream()
+                .filter(comando -> comando.startsWith("insert into usuario")).findFirst().orElseThrow()));
+        assertThat(antesDoInsert).noneMatch(comando -> comando.contains(" from usuario"));
+    }
+
+    @Test
+    void emailRepetidoComOutraCaixaDevolveConflito() throws Exception {
+        String email = "usuario-" + UUID.randomUUID() + "@email.com";
+        cadastrar(email, 0, 0);
+
+        mockMvc.perform(post("/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder()
+                                .nome("Outro").email(email.toUpperCase(Locale.ROOT)).senha(SENHA).build())))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void cadastrosSimultaneosComOMesmoEmailGravamUmSo() throws Exception {
+        String email = "usuario-" + UUID.randomUUID() + "@email.com";
+        String corpo = objectMapper.writeValueAsString(UsuarioDTO.builder()
+                .nome("Concorrente").email(email).senha(SENHA).build());
+        int threads = 8;
+        ExecutorService clientes = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Integer>> respostas = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            respostas.add(clientes.submit(() -> {
+                largada.await();
+                return mockMvc.perform(post("/usuario").contentType(MediaType.APPLICATION_JSON).content(corpo))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        largada.countDown();
+        List<Integer> status = new ArrayList<>();
+        for (Future<Integer> resposta : respostas) {
+            status.add(resposta.get(30, TimeUnit.SECONDS));
+        }
+        clientes.shutdown();
+
+        assertThat(status).containsOnly(200, 409);
+        assertThat(status).filteredOn(codigo -> codigo == 200).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from usuario where lower(email) = lower(?)",
+                Integer.class, email)).isEqualTo(1);
+    }
+
+    @Test
+    void cadastroComVariosFilhosUsaInsertsEmLote() throws Exception {
+        String email = "usuario-" + UUID.randomUUID() + "@email.com";
+
+        List<String> comandos = ConsultasSql.capturar(() -> cadastrar(email, 5, 3));
+
+        // Um insert por tabela (os filhos vão em lote, já com o usuario_id) e nenhum update posterior
+        assertThat(ConsultasSql.contar(comandos, "insert into usuario")).isEqualTo(1);
+        assertThat(ConsultasSql.contar(comandos, "insert into endereco")).isEqualTo(1);
+        assertThat(ConsultasSql.contar(comandos, "insert into telefone")).isEqualTo(1);
+        assertThat(ConsultasSql.contar(comandos, "update")).isZero();
+    }
+
+    @Test
+    void tokenAnteriorATrocaDeSenhaDeixaDeValer() throws Exception {
+        String email = cadastrar(0, 0);
+        String tokenAntigo = login(email);
+
+        mockMvc.perform(patch("/usuario")
+                        .header(HttpHeaders.AUTHORIZATION, tokenAntigo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"senha\": \"novaSenha456$\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/usuario").param("email", email).header(HttpHeaders.AUTHORIZATION, tokenAntigo))
+                .andExpect(status().isUnauthorized());
+        String tokenNovo = login(email, "novaSenha456$");
+        mockMvc.perform(get("/usuario").param("email", email).header(HttpHeaders.AUTHORIZATION, tokenNovo))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void tokenDeUsuarioExcluidoDeixaDeValer() throws Exception {
+        String email = cadastrar(0, 0);
+        String token = login(email);
+
+        mockMvc.perform(delete("/usuario/{email}", email).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/usuario").param("email", email).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void senhaCriptografadaAntesDeAbrirATransacao() throws Exception {
+        List<Boolean> emTransacao = new CopyOnWriteArrayList<>();
+        doAnswer(invocacao -> {
+            emTransacao.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocacao.callRealMethod();
+        }).when(passwordEncoder).encode(any());
+
+        String email = cadastrar(0, 0);
+        mockMvc.perform(patch("/usuario")
+                        .header(HttpHeaders.AUTHORIZATION, login(email))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"senha\": \"novaSenha456$\"}"))
+                .andExpect(status().isOk());
+
+        // Cadastro e troca de senha geram o hash sem uma conexão do pool presa à transação
+        assertThat(emTransacao).containsExactly(false, false);
+    }
+
+    private String cadastrar(int enderecos, int telefones) throws Exception {
+        return cadastrar("usuario-" + UUID.randomUUID() + "@email.com", enderecos, telefones);
+    }
+
+    private String cadastrar(String email, int enderecos, int telefones) throws Exception {
+        UsuarioDTO usuario = UsuarioDTO.builder()
+                .nome("Usuário de Teste")
+                .email(email)
+                .senha(SENHA)
+                .enderecos(IntStream.range(0, enderecos)
+                        .mapToObj(i -> EnderecoDTO.builder().rua("Rua " + i).numero((long) i).cidade("São Paulo")
+                                .estado("SP").cep("01001000").build())
+                        .toList())
+                .telefones(IntStream.range(0, telefones)
+                        .mapToObj(i -> TelefoneDTO.builder().ddd("11").numero("9000000" + i).build())
+                        .toList())
+                .build();
+        mockMvc.perform(post("/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(usuario)))
+                .andExpect(status().isOk());
+        return email;
+    }
+
+    private String login(String email) throws Exception {
+        return login(email, SENHA);
+    }
+
+    private String login(String email, String senha) throws Exception {
+        return mockMvc.perform(post("/usuario/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder().email(email).senha(senha).build())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.javanauta.usuario.infrastructure.clients;
+
+import com.javanauta.usuario.business.ViaCepProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Diretório de CEPs carregado de um CSV temporário: busca binária sobre as chaves e leitura do texto mapeado
+class DiretorioCepTest {
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void encontraOCepEmQualquerFormatoDeOrigem() throws IOException {
+        DiretorioCep diretorio = carregar(
+                "cep;logradouro;complemento;bairro;localidade;uf;ibge;ddd",
+                "20040-020;Rua da Quitanda;;Centro;Rio de Janeiro;RJ;3304557;21",
+                "01001000;Praça da Sé;lado ímpar;Sé;São Paulo;SP;3550308;11");
+
+        ViaCepDTO endereco = diretorio.buscar("01001000");
+        assertThat(endereco.getCep()).isEqualTo("01001-000");
+        assertThat(endereco.getLogradouro()).isEqualTo("Praça da Sé");
+        assertThat(endereco.getComplemento()).isEqualTo("lado ímpar");
+        assertThat(endereco.getBairro()).isEqualTo("Sé");
+        assertThat(endereco.getLocalidade()).isEqualTo("São Paulo");
+        assertThat(endereco.getUf()).isEqualTo("SP");
+        assertThat(endereco.getIbge()).isEqualTo("3550308");
+        assertThat(endereco.getDdd()).isEqualTo("11");
+
+        ViaCepDTO rio = diretorio.buscar("20040020");
+        assertThat(rio.getCep()).isEqualTo("20040-020");
+        assertThat(rio.getComplemento()).isEmpty();
+        assertThat(rio.getLocalidade()).isEqualTo("Rio de Janeiro");
+    }
+
+    @Test
+    void cepForaDoDiretorioDevolveNull() throws IOException {
+        DiretorioCep diretorio = carregar("01001000;Praça da Sé;;Sé;São Paulo;SP;3550308;11");
+
+        assertThat(diretorio.buscar("01001001")).isNull();
+        assertThat(diretorio.buscar("00000000")).isNull();
+        assertThat(diretorio.buscar("99999999")).isNull();
+    }
+
+    @Test
+    void cepRepetidoMantemAPrimeiraOcorrencia() throws IOException {
+        DiretorioCep diretorio = carregar(
+                "01001000;Primeira;;Sé;São Paulo;SP;3550308;11",
+                "01001-000;Segunda;;Sé;São Paulo;SP;3550308;11",
+                "01001000;Terceira;;Sé;São Paulo;SP;3550308;11");
+
+        assertThat(diretorio.buscar("01001000").getLogradouro()).isEqualTo("Primeira");
+    }
+
+    @Test
+    void linhasMalFormadasSaoIgnoradas() throws IOException {
+        DiretorioCep diretorio = carregar(
+                "linha sem separador",
+                "",
+                "0100100;CEP com sete dígitos;;;;;;",
+                "0100A000;CEP com letra;;;;;;",
+                "01001000;Praça da Sé;;Sé",
+                "20040020;Rua da Quitanda;;Centro;Rio de Janeiro;RJ;3304557;21");
+
+        assertThat(diretorio.buscar("01001000").getLogradouro()).isEqualTo("Praça da Sé");
+        // Campos ausentes no fim da linha viram texto vazio
+        assertThat(diretorio.buscar("01001000").getUf()).isEmpty();
+        assertThat(diretorio.buscar("01000000")).isNull();
+        assertThat(diretorio.buscar("20040020").getUf()).isEqualTo("RJ");
+    }
+
+    @Test
+    void arquivoGrandeForaDeOrdem() throws IOException {
+        // Mais linhas que a capacidade inicial dos arrays, gravadas em ordem decrescente de CEP
+        List<String> linhas = new ArrayList<>();
+        for (int i = 3000; i > 0; i--) {
+            linhas.add(String.format("%08d;Rua %d;;;Cidade;SP;;11", i * 17, i));
+        }
+        DiretorioCep diretorio = carregar(linhas.toArray(String[]::new));
+
+        assertThat(diretorio.buscar(String.format("%08d", 17)).getLogradouro()).isEqualTo("Rua 1");
+        assertThat(diretorio.buscar(String.format("%08d", 1500 * 17)).getLogradouro()).isEqualTo("Rua 1500");
+        assertThat(diretorio.buscar(String.format("%08d", 3000 * 17)).getLogradouro()).isEqualTo("Rua 3000");
+        assertThat(diretorio.buscar(String.format("%08d", 1500 * 17 + 1))).isNull();
+    }
+
+    @Test
+    void semArquivoConfiguradoNaoEncontraNada() {
+        DiretorioCep diretorio = new DiretorioCep(new ViaCepProperties());
+        diretorio.carregar();
+
+        assertThat(diretorio.buscar("01001000")).isNull();
+    }
+
+    private DiretorioCep carregar(String... linhas) throws IOException {
+        Path csv = pasta.resolve("ceps.csv");
+        Files.write(csv, List.of(linhas), StandardCharsets.UTF_8);
+        ViaCepProperties properties = new ViaCepProperties();
+        properties.getDiretorio().setArquivo(csv.toString());
+        DiretorioCep diretorio = new DiretorioCep(properties);
+        diretorio.carregar();
+        return diretorio;
+    }
+}
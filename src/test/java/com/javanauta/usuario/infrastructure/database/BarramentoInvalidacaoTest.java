@@ -0,0 +1,140 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import com.javanauta.usuario.IntegracaoPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Duas instâncias do barramento escutando o mesmo banco, cada uma com o seu ouvinte: as publicações chegam
+// às duas só depois do commit, e a escuta derrubada pelo servidor reconecta e recupera o estado local
+class BarramentoInvalidacaoTest extends IntegracaoPostgres {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final OuvinteFalso ouvinteA = new OuvinteFalso();
+    private final OuvinteFalso ouvinteB = new OuvinteFalso();
+    private BarramentoInvalidacao instanciaA;
+    private BarramentoInvalidacao instanciaB;
+
+    @BeforeEach
+    void iniciar() {
+        instanciaA = criarInstancia(ouvinteA);
+        instanciaB = criarInstancia(ouvinteB);
+        // Cada escuta recupera o estado assim que o LISTEN está ativo
+        aguardar(() -> ouvinteA.recuperacoes.get() == 1 && ouvinteB.recuperacoes.get() == 1);
+    }
+
+    @AfterEach
+    void encerrar() {
+        instanciaA.stop();
+        instanciaB.stop();
+    }
+
+    @Test
+    void publicacaoChegaAsDuasInstancias() {
+        instanciaA.publicarUsuario("Usuario@Email.com");
+        instanciaB.publicarToken(42L, 3);
+
+        aguardar(() -> ouvinteA.tokens.contains("42|3") && ouvinteB.tokens.contains("42|3"));
+        assertThat(ouvinteA.emails).contains("usuario@email.com");
+        assertThat(ouvinteB.emails).contains("usuario@email.com");
+    }
+
+    @Test
+    void publicacaoDesfeitaNoRollbackNaoEEntregue() {
+        transactionTemplate.executeWithoutResult(status -> {
+            instanciaA.publicarUsuario("desfeito@email.com");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> instanciaA.publicarUsuario("confirmado@email.com"));
+
+        // As notificações chegam na ordem dos commits: recebida a segunda, a primeira não vem mais
+        aguardar(() -> ouvinteB.emails.contains("confirmado@email.com"));
+        assertThat(ouvinteB.emails).doesNotContain("desfeito@email.com");
+    }
+
+    @Test
+    void escutaDerrubadaPeloServidorReconectaERecupera() {
+        int derrubadas = jdbcTemplate.queryForObject("""
+                select count(pg_terminate_backend(pid)) from pg_stat_activity
+                where application_name = 'usuario-invalidacao' and pid <> pg_backend_pid()""", Integer.class);
+        assertThat(derrubadas).isGreaterThanOrEqualTo(2);
+
+        aguardar(() -> ouvinteA.recuperacoes.get() == 2 && ouvinteB.recuperacoes.get() == 2);
+        aguardar(() -> escutas() >= 2);
+
+        // A nova conexão voltou a escutar o canal
+        instanciaA.publicarUsuario("depois@email.com");
+        aguardar(() -> ouvinteB.emails.contains("depois@email.com"));
+    }
+
+    private BarramentoInvalidacao criarInstancia(OuvinteInvalidacao ouvinte) {
+        StaticListableBeanFactory ouvintes = new StaticListableBeanFactory(Map.of("ouvinte", ouvinte));
+        BarramentoInvalidacao barramento = new BarramentoInvalidacao(jdbcTemplate, dataSourceProperties,
+                ouvintes.getBeanProvider(OuvinteInvalidacao.class), new SimpleMeterRegistry());
+        barramento.start();
+        return barramento;
+    }
+
+    private int escutas() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from pg_stat_activity where application_name = 'usuario-invalidacao'", Integer.class);
+    }
+
+    private void aguardar(BooleanSupplier condicao) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicao.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class OuvinteFalso implements OuvinteInvalidacao {
+
+        private final List<String> emails = new CopyOnWriteArrayList<>();
+        private final List<String> tokens = new CopyOnWriteArrayList<>();
+        private final AtomicInteger recuperacoes = new AtomicInteger();
+
+        @Override
+        public void usuarioAlterado(String email) {
+            emails.add(email);
+        }
+
+        @Override
+        public void tokenAlterado(long idUsuario, int versaoToken) {
+            tokens.add(idUsuario + "|" + versaoToken);
+        }
+
+        @Override
+        public void recuperar() {
+            recuperacoes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.javanauta.usuario.infrastructure.database;
+
+import com.javanauta.usuario.IntegracaoPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// As migrações rodam no boot do contexto; aqui conferimos que todas terminaram e que os índices
+// criados com concurrently ficaram válidos (um create index concurrently interrompido deixa o índice inválido)
+class MigracoesFlywayTest extends IntegracaoPostgres {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void todasAsMigracoesForamAplicadas() {
+        List<Boolean> sucesso = jdbcTemplate.queryForList(
+                "select success from flyway_schema_history where version is not null", Boolean.class);
+        assertThat(sucesso).isNotEmpty().containsOnly(true);
+    }
+
+    @Test
+    void indicesDaListagemCriadosEValidos() {
+        assertThat(indicesValidos("ix_usuario_nome_prefixo", "ix_endereco_estado_cidade", "ix_endereco_cidade"))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void indicesDeTrigramaCriadosEValidos() {
+        assertThat(indicesValidos("ix_usuario_nome_trgm", "ix_usuario_email_trgm")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from pg_extension where extname = 'pg_trgm'",
+                Integer.class)).isEqualTo(1);
+    }
+
+    private int indicesValidos(String... nomes) {
+        return jdbcTemplate.queryForObject("""
+                select count(*) from pg_index i join pg_class c on c.oid = i.indexrelid
+                where c.relname = any (?) and i.indisvalid and i.indisready""", Integer.class, (Object) nomes);
+    }
+}
@@ -0,0 +1,82 @@
+package com.javanauta.usuario.infrastructure.eventos;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.business.OutboxProperties;
+import com.javanauta.usuario.business.dto.EventoUsuarioDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Destino "arquivo": cada lote é acrescentado ao NDJSON, um evento por linha e na ordem recebida
+class DestinoEventosArquivoTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void acrescentaCadaLoteAoArquivoUmEventoPorLinha() throws IOException {
+        Path arquivo = pasta.resolve("eventos.ndjson");
+        DestinoEventosArquivo destino = criarDestino(arquivo);
+
+        destino.publicar(List.of(evento(1L, "{\"nome\": \"Primeiro\"}"), evento(2L, null)));
+        destino.publicar(List.of(evento(3L, "{\"nome\": \"Terceiro\"}")));
+
+        List<String> linhas = Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+        assertThat(linhas).hasSize(3);
+        List<JsonNode> eventos = linhas.stream().map(this::ler).toList();
+        assertThat(eventos).extracting(evento -> evento.get("id").asLong()).containsExactly(1L, 2L, 3L);
+        // Os dados já chegam em JSON e são gravados como objeto, não como texto
+        assertThat(eventos.get(0).get("dados").get("nome").asText()).isEqualTo("Primeiro");
+        assertThat(eventos.get(1).get("dados").isNull()).isTrue();
+        assertThat(eventos.get(2).get("tipo").asText()).isEqualTo("USUARIO_CRIADO");
+    }
+
+    @Test
+    void falhaNaGravacaoImpedeAConfirmacaoDoLote() throws IOException {
+        Path diretorio = Files.createDirectory(pasta.resolve("diretorio"));
+        DestinoEventosArquivo destino = criarDestino(diretorio);
+
+        // O relay só remove os eventos quando publicar termina sem exceção
+        assertThatThrownBy(() -> destino.publicar(List.of(evento(1L, null))))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    private DestinoEventosArquivo criarDestino(Path arquivo) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setArquivo(arquivo.toString());
+        return new DestinoEventosArquivo(properties, objectMapper);
+    }
+
+    private EventoUsuarioDTO evento(Long id, String dados) {
+        return EventoUsuarioDTO.builder()
+                .id(id)
+                .tipo("USUARIO_CRIADO")
+                .idUsuario(10L)
+                .email("evento" + id + "@email.com")
+                .dados(dados)
+                .ocorridoEm(OffsetDateTime.now())
+                .build();
+    }
+
+    private JsonNode ler(String linha) {
+        try {
+            return objectMapper.readTree(linha);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
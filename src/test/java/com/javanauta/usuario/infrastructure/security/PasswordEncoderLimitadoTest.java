@@ -0,0 +1,107 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.javanauta.usuario.infrastructure.exceptions.ServicoIndisponivelException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Uma thread e uma vaga na fila: requisições são rejeitadas com a fila cheia, lotes esperam a vaga
+class PasswordEncoderLimitadoTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordEncoderLimitado encoder;
+
+    @AfterEach
+    void encerrar() {
+        liberar.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void loteEsperaAVagaNaFilaEnquantoRequisicoesSaoRejeitadas() throws Exception {
+        encoder = criarEncoder(Duration.ofSeconds(5));
+        // Ocupa a thread e a vaga da fila
+        CompletableFuture<String> ocupaThread = CompletableFuture.supplyAsync(() -> encoder.encode("lenta"));
+        aguardarFila(0);
+        CompletableFuture<String> ocupaFila = CompletableFuture.supplyAsync(() -> encoder.encode("fila"));
+        aguardarFila(1);
+
+        CompletableFuture<List<String>> lote = CompletableFuture.supplyAsync(() -> encoder.encodeTodos(List.of("a", "b")));
+        assertThatThrownBy(() -> encoder.encode("requisicao"))
+                .isInstanceOf(ServicoIndisponivelException.class);
+        Thread.sleep(200);
+        assertThat(lote).isNotDone();
+
+        liberar.countDown();
+        assertThat(lote.get(5, TimeUnit.SECONDS)).containsExactly("hash:a", "hash:b");
+        assertThat(ocupaThread.get(5, TimeUnit.SECONDS)).isEqualTo("hash:lenta");
+        assertThat(ocupaFila.get(5, TimeUnit.SECONDS)).isEqualTo("hash:fila");
+    }
+
+    @Test
+    void loteAguardandoVagaFalhaQuandoOEncoderEEncerrado() throws Exception {
+        encoder = criarEncoder(Duration.ofMillis(500));
+        CompletableFuture.supplyAsync(() -> encoder.encode("lenta"));
+        aguardarFila(0);
+        CompletableFuture.supplyAsync(() -> encoder.encode("fila"));
+        aguardarFila(1);
+
+        CompletableFuture<List<String>> lote = CompletableFuture.supplyAsync(() -> encoder.encodeTodos(List.of("a")));
+        Thread.sleep(100);
+        // A fila continua cheia: depois do encerramento o lote desiste em vez de esperar para sempre
+        encoder.destroy();
+
+        assertThatThrownBy(() -> lote.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    private PasswordEncoderLimitado criarEncoder(Duration tempoMaximoEspera) {
+        SenhaProperties properties = new SenhaProperties();
+        properties.setThreads(1);
+        properties.setCapacidadeFila(1);
+        properties.setTempoMaximoEspera(tempoMaximoEspera);
+        return new PasswordEncoderLimitado(new EncoderLento(), properties, meterRegistry);
+    }
+
+    // Espera a tarefa anterior chegar à thread (fila 0) ou à fila (fila 1)
+    private void aguardarFila(int tamanho) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("senha.fila").gauge().value() != tamanho
+                || meterRegistry.get("senha.ativas").gauge().value() != 1) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(10);
+        }
+    }
+
+    // Hashes previsíveis; "lenta" segura a thread até o teste liberar
+    private class EncoderLento implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if ("lenta".contentEquals(rawPassword)) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
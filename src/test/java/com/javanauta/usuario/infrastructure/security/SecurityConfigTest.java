@@ -0,0 +1,95 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javanauta.usuario.IntegracaoPostgres;
+import com.javanauta.usuario.business.dto.UsuarioDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Operações em massa restritas a administradores; a autoridade vem da coluna administrador via claim do token
+class SecurityConfigTest extends IntegracaoPostgres {
+
+    private static final String SENHA = "senha123$";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importacaoExigeAdministrador() throws Exception {
+        String linha = "{\"nome\": \"Importado\", \"email\": \"importado-" + UUID.randomUUID()
+                + "@email.com\", \"senha\": \"senha\"}\n";
+
+        mockMvc.perform(post("/usuario/importacao")
+                        .header(HttpHeaders.AUTHORIZATION, login(cadastrar(false)))
+                        .contentType("application/x-ndjson")
+                        .content(linha))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/usuario/importacao")
+                        .header(HttpHeaders.AUTHORIZATION, login(cadastrar(true)))
+                        .contentType("application/x-ndjson")
+                        .content(linha))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void exportacaoExigeAdministrador() throws Exception {
+        mockMvc.perform(get("/usuario/exportacao").header(HttpHeaders.AUTHORIZATION, login(cadastrar(false))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/usuario/exportacao").header(HttpHeaders.AUTHORIZATION, login(cadastrar(true))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listagemExigeAdministrador() throws Exception {
+        mockMvc.perform(get("/usuario/lista").header(HttpHeaders.AUTHORIZATION, login(cadastrar(false))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/usuario/lista").param("estado", "SP")
+                        .header(HttpHeaders.AUTHORIZATION, login(cadastrar(true))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void buscaPorSemelhancaExigeAdministrador() throws Exception {
+        mockMvc.perform(get("/usuario/busca").param("termo", "Usuario")
+                        .header(HttpHeaders.AUTHORIZATION, login(cadastrar(false))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/usuario/busca").param("termo", "Usuario")
+                        .header(HttpHeaders.AUTHORIZATION, login(cadastrar(true))))
+                .andExpect(status().isOk());
+    }
+
+    private String cadastrar(boolean administrador) throws Exception {
+        String email = "usuario-" + UUID.randomUUID() + "@email.com";
+        mockMvc.perform(post("/usuario")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder()
+                                .nome("Usuário de Teste").email(email).senha(SENHA).build())))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("update usuario set administrador = ? where email = ?", administrador, email);
+        return email;
+    }
+
+    private String login(String email) throws Exception {
+        return mockMvc.perform(post("/usuario/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UsuarioDTO.builder().email(email).senha(SENHA).build())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
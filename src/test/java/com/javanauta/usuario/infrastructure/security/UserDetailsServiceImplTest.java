@@ -0,0 +1,135 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.javanauta.usuario.infrastructure.database.ReplicaProperties;
+import com.javanauta.usuario.infrastructure.entity.Usuario;
+import com.javanauta.usuario.infrastructure.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Busca do login na réplica com a confirmação no primário quando o usuário ainda não foi replicado
+class UserDetailsServiceImplTest {
+
+    private static final String EMAIL = "novo@email.com";
+
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final TransacoesRegistradas transacoes = new TransacoesRegistradas();
+    private final AtomicInteger buscasNaReplica = new AtomicInteger();
+    private final AtomicInteger buscasNoPrimario = new AtomicInteger();
+
+    @BeforeEach
+    void iniciar() {
+        // Réplica atrasada: dentro da transação somente leitura o cadastro recém-feito ainda não aparece
+        when(usuarioRepository.findByEmail(anyString())).thenAnswer(invocacao -> {
+            if (transacoes.somenteLeituraAtiva()) {
+                buscasNaReplica.incrementAndGet();
+                return Optional.empty();
+            }
+            buscasNoPrimario.incrementAndGet();
+            return Optional.of(Usuario.builder().id(7L).email(invocacao.getArgument(0)).senha("hash").build());
+        });
+    }
+
+    @Test
+    void loginsSimultaneosDeUsuarioAindaNaoReplicadoConfirmamNoPrimario() throws Exception {
+        UserDetailsServiceImpl service = new UserDetailsServiceImpl(usuarioRepository, transacoes, comReplica());
+        int threads = 16;
+        ExecutorService logins = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<UserDetails>> resultados = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            resultados.add(logins.submit(() -> {
+                largada.await();
+                return service.loadUserByUsername(EMAIL);
+            }));
+        }
+        largada.countDown();
+        for (Future<UserDetails> resultado : resultados) {
+            assertThat(resultado.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo(EMAIL);
+        }
+        logins.shutdown();
+
+        // Cada login tenta a réplica em transação somente leitura e só então o primário, fora dela
+        assertThat(buscasNaReplica).hasValue(threads);
+        assertThat(buscasNoPrimario).hasValue(threads);
+        assertThat(transacoes.abertas).hasValue(threads);
+        assertThat(transacoes.naoSomenteLeitura).hasValue(0);
+    }
+
+    @Test
+    void semReplicaNaoHaSegundaBusca() {
+        UserDetailsServiceImpl service = new UserDetailsServiceImpl(usuarioRepository, transacoes,
+                new ReplicaProperties());
+
+        assertThatThrownBy(() -> service.loadUserByUsername(EMAIL)).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(buscasNaReplica).hasValue(1);
+        assertThat(buscasNoPrimario).hasValue(0);
+    }
+
+    @Test
+    void usuarioAusenteTambemNoPrimarioEhRecusado() {
+        when(usuarioRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        UserDetailsServiceImpl service = new UserDetailsServiceImpl(usuarioRepository, transacoes, comReplica());
+
+        assertThatThrownBy(() -> service.loadUserByUsername(EMAIL)).isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    private ReplicaProperties comReplica() {
+        ReplicaProperties replica = new ReplicaProperties();
+        replica.setUrl("jdbc:postgresql://replica:5432/db_usuario");
+        return replica;
+    }
+
+    // Gerenciador de transações que só registra as transações abertas por thread
+    private static class TransacoesRegistradas implements PlatformTransactionManager {
+
+        private final ThreadLocal<Boolean> somenteLeitura = new ThreadLocal<>();
+        private final AtomicInteger abertas = new AtomicInteger();
+        private final AtomicInteger naoSomenteLeitura = new AtomicInteger();
+
+        boolean somenteLeituraAtiva() {
+            return Boolean.TRUE.equals(somenteLeitura.get());
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definicao) {
+            abertas.incrementAndGet();
+            if (!definicao.isReadOnly()) {
+                naoSomenteLeitura.incrementAndGet();
+            }
+            somenteLeitura.set(definicao.isReadOnly());
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            somenteLeitura.remove();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            somenteLeitura.remove();
+        }
+    }
+}
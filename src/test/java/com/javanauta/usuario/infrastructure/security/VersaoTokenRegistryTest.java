@@ -0,0 +1,72 @@
+package com.javanauta.usuario.infrastructure.security;
+
+import com.javanauta.usuario.infrastructure.database.BarramentoInvalidacao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// Versões de token aplicadas em memória só depois que a transação que as gravou é confirmada
+class VersaoTokenRegistryTest {
+
+    private static final long ID_USUARIO = 42L;
+
+    private final BarramentoInvalidacao barramento = mock(BarramentoInvalidacao.class);
+    private final VersaoTokenRegistry registry = new VersaoTokenRegistry(mock(JdbcTemplate.class),
+            new JwtProperties(), barramento);
+
+    @AfterEach
+    void encerrar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void novaVersaoValeSoDepoisDoCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.atualizar(ID_USUARIO, 1);
+        assertThat(registry.tokenValido(ID_USUARIO, 0)).isTrue();
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(registry.tokenValido(ID_USUARIO, 0)).isFalse();
+        assertThat(registry.tokenValido(ID_USUARIO, 1)).isTrue();
+        verify(barramento).publicarToken(ID_USUARIO, 1);
+    }
+
+    @Test
+    void rollbackMantemAVersaoAnterior() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.revogar(ID_USUARIO);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Tokens emitidos antes e depois continuam aceitos: a exclusão não foi gravada
+        assertThat(registry.tokenValido(ID_USUARIO, 0)).isTrue();
+    }
+
+    @Test
+    void revogacaoConfirmadaRecusaQualquerVersao() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.revogar(ID_USUARIO);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        assertThat(registry.tokenValido(ID_USUARIO, 1000)).isFalse();
+    }
+
+    @Test
+    void foraDeTransacaoAplicaNaHora() {
+        registry.atualizar(ID_USUARIO, 3);
+
+        assertThat(registry.tokenValido(ID_USUARIO, 2)).isFalse();
+        assertThat(registry.tokenValido(ID_USUARIO, 3)).isTrue();
+    }
+}